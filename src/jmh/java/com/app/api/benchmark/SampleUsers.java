@@ -0,0 +1,44 @@
+package com.app.api.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.app.api.model.User;
+import com.app.api.model.UserStatus;
+
+// Fixed sample data so every run measures the same payloads
+final class SampleUsers {
+
+    static final String PASSWORD = "Secret1!x";
+
+    private SampleUsers() {
+    }
+
+    static User user(long n) {
+        User user = new User();
+        user.setName("Bench User " + n);
+        user.setUsername("bench_user_" + n);
+        user.setEmail("bench.user" + n + "@example.com");
+        user.setPassword(PASSWORD);
+        return user;
+    }
+
+    // A user as returned by the API: id, status, timestamps and a BCrypt hash
+    static User stored(long n) {
+        User user = user(n);
+        user.setId(n);
+        user.setStatus(UserStatus.ACTIVE);
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5Z2Jm2xQY6nFJ8C6FQmPZ6e");
+        user.setCreatedAt(User.now());
+        user.setUpdatedAt(User.now());
+        return user;
+    }
+
+    static List<User> stored(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            users.add(stored((long) i));
+        }
+        return users;
+    }
+}
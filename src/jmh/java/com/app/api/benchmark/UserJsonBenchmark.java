@@ -0,0 +1,69 @@
+package com.app.api.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.app.api.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+// Jackson (de)serialization of User and List<User>, configured like the application's ObjectMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserJsonBenchmark {
+
+    // Page sizes: the default limit and the maximum limit of GET /api/users
+    @Param({"50", "500"})
+    public int listSize;
+
+    private ObjectWriter userWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader userReader;
+    private ObjectReader listReader;
+    private User user;
+    private List<User> users;
+    private byte[] userJson;
+    private byte[] listJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        userWriter = mapper.writerFor(User.class);
+        listWriter = mapper.writerFor(new TypeReference<List<User>>() { });
+        userReader = mapper.readerFor(User.class);
+        listReader = mapper.readerFor(new TypeReference<List<User>>() { });
+        user = SampleUsers.stored(1L);
+        users = SampleUsers.stored(listSize);
+        userJson = userWriter.writeValueAsBytes(user);
+        listJson = listWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return listWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public User deserializeUser() throws Exception {
+        return userReader.readValue(userJson);
+    }
+
+    @Benchmark
+    public List<User> deserializeList() throws Exception {
+        return listReader.readValue(listJson);
+    }
+}
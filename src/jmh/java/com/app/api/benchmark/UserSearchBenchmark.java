@@ -0,0 +1,58 @@
+package com.app.api.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.app.api.search.SearchSnapshot;
+
+// Type-ahead queries against a search snapshot of synthetic users with realistic name overlap:
+// a one-letter prefix, a common surname, a rare infix and a miss
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserSearchBenchmark {
+
+    private static final String[] FIRST = {"james", "mary", "john", "patricia", "robert", "jennifer", "michael",
+            "linda", "william", "elizabeth", "david", "barbara", "richard", "susan", "joseph", "jessica", "thomas",
+            "sarah", "charles", "karen", "ahmed", "fatima", "wei", "yuki", "olga", "pedro", "amara", "ivan"};
+    private static final String[] LAST = {"smith", "johnson", "williams", "brown", "jones", "garcia", "miller",
+            "davis", "rodriguez", "martinez", "hernandez", "lopez", "wilson", "anderson", "thomas", "taylor",
+            "moore", "jackson", "martin", "lee", "khan", "chen", "tanaka", "ivanova", "silva", "okafor"};
+    private static final String[] DOMAINS = {"example.com", "mail.net", "corp.org", "inbox.io"};
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"j", "smith", "ahmed.okafor77", "qzx"})
+    private String query;
+
+    private SearchSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        SearchSnapshot.Builder builder = new SearchSnapshot.Builder();
+        for (int i = 1; i <= users; i++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            builder.add(i, capitalize(first) + " " + capitalize(last), first + "_" + last + i,
+                    first + "." + last + i + "@" + DOMAINS[random.nextInt(DOMAINS.length)]);
+        }
+        snapshot = builder.build();
+    }
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    @Benchmark
+    public List<SearchSnapshot.Hit> search() {
+        return snapshot.search(query, 10, 20000, id -> false);
+    }
+}
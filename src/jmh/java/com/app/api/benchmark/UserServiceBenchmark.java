@@ -0,0 +1,64 @@
+package com.app.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.app.api.App;
+import com.app.api.model.User;
+import com.app.api.service.UserService;
+
+// UserServiceImpl.save/updateUser against H2 in MySQL mode with the real Liquibase changelog.
+// BCrypt runs at strength 4 so the persistence path is what gets measured; see PasswordEncoderBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean precheck;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private Long existingId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(App.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--app.security.bcrypt.strength=4",
+                        "--app.users.duplicate-check.precheck=" + precheck);
+        userService = context.getBean(UserService.class);
+        existingId = userService.save(SampleUsers.user(sequence.incrementAndGet())).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User save() {
+        return userService.save(SampleUsers.user(sequence.incrementAndGet()));
+    }
+
+    // Renames the same user every time: duplicate check, dirty check, UPDATE and cache eviction
+    @Benchmark
+    public User updateUser() {
+        User details = SampleUsers.user(sequence.incrementAndGet());
+        details.setPassword(null);
+        return userService.updateUser(existingId, details);
+    }
+}
@@ -0,0 +1,78 @@
+package com.app.api.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.api.App;
+import com.app.api.model.User;
+import com.app.api.repository.UserRepository;
+
+// Boots the application on H2 (MySQL mode) with the real Liquibase changelog, seeds users and
+// drives the configured traffic mix: mvn -Ploadtest verify
+public class LoadHarness {
+
+    private static final int SEED_CHUNK = 500;
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+
+        // Extra arguments go to the application, e.g. --spring.profiles.active=virtual-threads
+        List<String> appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                // Every simulated client shares one address; per-username throttling stays on
+                "--app.security.login-limit.ip.attempts=0"));
+        appArgs.addAll(Arrays.asList(args));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(App.class).run(appArgs.toArray(new String[0]));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<Workload.SeededUser> users = seed(context, settings.users());
+            System.out.printf("Seeded %d users, running %s for %ds (+%ds warm-up)%n", users.size(), settings.mix(),
+                    settings.duration().toSeconds(), settings.warmup().toSeconds());
+
+            LoadReport report = new Workload("http://localhost:" + port, users, settings).run();
+            report.print(System.out, settings);
+            File file = new File(settings.report());
+            report.writeJson(file, settings);
+            System.out.println("Report written to " + file.getAbsolutePath());
+        } finally {
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    // Insert users in JDBC batches with one shared hash, so seeding doesn't pay BCrypt per row
+    static List<Workload.SeededUser> seed(ConfigurableApplicationContext context, int count) {
+        UserRepository repository = context.getBean(UserRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        String hash = context.getBean(PasswordEncoder.class).encode(Workload.PASSWORD);
+
+        List<Workload.SeededUser> seeded = new ArrayList<>(count);
+        for (int start = 0; start < count; start += SEED_CHUNK) {
+            List<User> chunk = new ArrayList<>();
+            for (int n = start; n < Math.min(start + SEED_CHUNK, count); n++) {
+                User user = new User();
+                user.setName("Seed User " + n);
+                user.setUsername("seed_user_" + n);
+                user.setEmail("seed.user" + n + "@example.com");
+                user.setPassword(hash);
+                chunk.add(user);
+            }
+            transactionTemplate.executeWithoutResult(status -> repository.saveAll(chunk));
+            chunk.forEach(user -> seeded.add(new Workload.SeededUser(user.getId(), user.getUsername(), user.getEmail())));
+        }
+        return seeded;
+    }
+}
@@ -0,0 +1,125 @@
+package com.app.api.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Latency histograms and error counts per endpoint; only requests started after the warm-up are recorded
+class LoadReport {
+
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private volatile boolean recording;
+    private long recordingStartedAt;
+    private long recordingStoppedAt;
+
+    LoadReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void start() {
+        recordingStartedAt = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        recordingStoppedAt = System.nanoTime();
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    void record(Operation operation, long latencyNanos, boolean success) {
+        if (!recording) {
+            return;
+        }
+        latencies.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY));
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void print(PrintStream out, LoadSettings settings) {
+        double seconds = elapsedSeconds();
+        out.printf("%nLoad test: %d users, %s, %.0fs measured after %ds warm-up%n", settings.users(),
+                settings.openModel() ? settings.rate() + " req/s arrival rate" : settings.concurrency() + " concurrent clients",
+                seconds, settings.warmup().toSeconds());
+        out.printf("%-22s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Histogram total = new Histogram(MAX_LATENCY, 3);
+        long totalErrors = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += errors.get(operation).sum();
+            printRow(out, operation.endpoint(), histogram, errors.get(operation).sum(), seconds);
+        }
+        printRow(out, "total", total, totalErrors, seconds);
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors, double seconds) {
+        out.printf("%-22s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, histogram.getTotalCount(), errors,
+                histogram.getTotalCount() / seconds, millis(histogram, 50), millis(histogram, 90),
+                millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+    }
+
+    // Same numbers as the table, as JSON so two builds can be compared
+    void writeJson(File file, LoadSettings settings) throws IOException {
+        double seconds = elapsedSeconds();
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", histogram.getTotalCount());
+            row.put("errors", errors.get(operation).sum());
+            row.put("throughput", histogram.getTotalCount() / seconds);
+            row.put("p50", millis(histogram, 50));
+            row.put("p90", millis(histogram, 90));
+            row.put("p99", millis(histogram, 99));
+            row.put("p999", millis(histogram, 99.9));
+            row.put("max", histogram.getMaxValue() / 1000.0);
+            endpoints.put(operation.endpoint(), row);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", settings.users());
+        report.put("mix", settings.mix());
+        report.put("concurrency", settings.concurrency());
+        report.put("rate", settings.rate());
+        report.put("seconds", seconds);
+        report.put("latencyUnit", "ms");
+        report.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    private double elapsedSeconds() {
+        return (recordingStoppedAt - recordingStartedAt) / 1e9;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,47 @@
+package com.app.api.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+// Harness settings, read from -Dloadtest.* system properties (set by the loadtest Maven profile)
+record LoadSettings(int users, Map<Operation, Integer> mix, int concurrency, int rate,
+                    Duration duration, Duration warmup, String report) {
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("loadtest.users", 1000),
+                parseMix(System.getProperty("loadtest.mix", "register=5,login=10,get=45,list=20,update=15,delete=5")),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Integer.getInteger("loadtest.rate", 0),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                System.getProperty("loadtest.report", "loadtest-report.json"));
+    }
+
+    // "register=5,login=10,get=45" -> relative weights per operation
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight.");
+        }
+        return mix;
+    }
+
+    // Fixed arrival rate (open model) when a rate is given, fixed concurrency (closed model) otherwise
+    boolean openModel() {
+        return rate > 0;
+    }
+}
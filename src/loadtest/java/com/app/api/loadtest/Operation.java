@@ -0,0 +1,22 @@
+package com.app.api.loadtest;
+
+// Endpoints driven by the harness
+enum Operation {
+    REGISTER("POST /api/register"),
+    LOGIN("POST /api/login"),
+    GET("GET /api/users/{id}"),
+    LIST("GET /api/users"),
+    UPDATE("PUT /api/users/{id}"),
+    PATCH("PATCH /api/users/{id}"),
+    DELETE("DELETE /api/users/{id}");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+}
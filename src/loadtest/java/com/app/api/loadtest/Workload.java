@@ -0,0 +1,211 @@
+package com.app.api.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// Drives the configured request mix against a running instance
+class Workload {
+
+    static final String PASSWORD = "Secret1!x";
+
+    private final String baseUrl;
+    private final List<SeededUser> users;
+    private final LoadSettings settings;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LoadReport report = new LoadReport();
+    private final AtomicLong registrations = new AtomicLong();
+    // Users created by REGISTER; DELETE only removes these so the seeded set stays intact
+    private final Queue<Long> deletable = new ConcurrentLinkedQueue<>();
+
+    Workload(String baseUrl, List<SeededUser> users, LoadSettings settings) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.settings = settings;
+        this.operations = settings.mix().keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, settings.concurrency() / 4)))
+                .build();
+    }
+
+    LoadReport run() throws InterruptedException {
+        long start = System.nanoTime();
+        long recordFrom = start + settings.warmup().toNanos();
+        long end = recordFrom + settings.duration().toNanos();
+        Thread timer = new Thread(() -> {
+            LockSupport.parkNanos(recordFrom - System.nanoTime());
+            report.start();
+            LockSupport.parkNanos(end - System.nanoTime());
+            report.stop();
+        }, "loadtest-timer");
+        timer.start();
+        if (settings.openModel()) {
+            runOpen(start, end);
+        } else {
+            runClosed(end);
+        }
+        timer.join();
+        return report;
+    }
+
+    // Fixed concurrency: each client sends its next request as soon as the previous one returns
+    private void runClosed(long end) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency());
+        for (int i = 0; i < settings.concurrency(); i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < end) {
+                    Operation operation = nextOperation();
+                    HttpRequest request = request(operation);
+                    long startedAt = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        completed(operation, response, startedAt);
+                    } catch (Exception e) {
+                        report.record(operation, System.nanoTime() - startedAt, false);
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(settings.duration().toSeconds() + settings.warmup().toSeconds() + 60, TimeUnit.SECONDS);
+    }
+
+    // Fixed arrival rate: requests are due on a fixed schedule and latency is measured from the
+    // scheduled time, so a slow server shows up as latency instead of as fewer requests.
+    // At most `concurrency` requests are in flight; beyond that the schedule falls behind.
+    private void runOpen(long start, long end) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        Semaphore inFlight = new Semaphore(settings.concurrency());
+        for (long n = 0; ; n++) {
+            long dueAt = start + n * interval;
+            if (dueAt >= end) {
+                break;
+            }
+            LockSupport.parkNanos(dueAt - System.nanoTime());
+            inFlight.acquire();
+            Operation operation = nextOperation();
+            CompletableFuture<HttpResponse<String>> response =
+                    client.sendAsync(request(operation), HttpResponse.BodyHandlers.ofString());
+            response.whenComplete((result, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    report.record(operation, System.nanoTime() - dueAt, false);
+                } else {
+                    completed(operation, result, dueAt);
+                }
+            });
+        }
+        inFlight.acquire(settings.concurrency());
+    }
+
+    private void completed(Operation operation, HttpResponse<String> response, long startedAt) {
+        long latency = System.nanoTime() - startedAt;
+        boolean success = response.statusCode() < 400;
+        report.record(operation, latency, success);
+        if (operation == Operation.REGISTER && response.statusCode() == 201) {
+            try {
+                deletable.add(mapper.readTree(response.body()).get("id").asLong());
+            } catch (Exception e) {
+                // Not deletable later; the latency is already recorded
+            }
+        }
+    }
+
+    private Operation nextOperation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (cumulativeWeights[i] <= pick) {
+                i++;
+            }
+            // Nothing registered yet to delete: draw again
+            if (operations[i] != Operation.DELETE || !deletable.isEmpty() || operations.length == 1) {
+                return operations[i];
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation) {
+        SeededUser user = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+        switch (operation) {
+            case REGISTER -> {
+                long n = registrations.incrementAndGet();
+                return json("/api/register", "POST", userJson("Load User " + n, "load_user_" + n, "load.user" + n + "@example.com"));
+            }
+            case LOGIN -> {
+                ObjectNode body = mapper.createObjectNode().put("username", user.username()).put("password", PASSWORD);
+                return json("/api/login", "POST", body);
+            }
+            case GET -> {
+                return get("/api/users/" + user.id());
+            }
+            case LIST -> {
+                return get("/api/users?limit=50");
+            }
+            case UPDATE -> {
+                String name = "Updated " + ThreadLocalRandom.current().nextInt(1_000_000);
+                return json("/api/users/" + user.id(), "PUT", userJson(name, user.username(), user.email()));
+            }
+            case PATCH -> {
+                ObjectNode body = mapper.createObjectNode().put("name", "Patched " + ThreadLocalRandom.current().nextInt(1_000_000));
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + user.id()))
+                        .header("Content-Type", "application/merge-patch+json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build();
+            }
+            case DELETE -> {
+                Long id = deletable.poll();
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + (id == null ? 0 : id))).DELETE().build();
+            }
+            default -> throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private ObjectNode userJson(String name, String username, String email) {
+        return mapper.createObjectNode().put("name", name).put("username", username).put("email", email)
+                .put("password", PASSWORD);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest json(String path, String method, JsonNode body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    // Id and keys of a user inserted before the run
+    record SeededUser(long id, String username, String email) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.app.api.archive;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.api.availability.UserAvailabilityIndex;
+import com.app.api.changes.UserChangeFeed;
+import com.app.api.model.User;
+import com.app.api.model.UserStatus;
+import com.app.api.repository.UserArchiveRepository;
+import com.app.api.statistics.UserStatistics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Moves users that have been soft deleted for longer than the retention period into users_archive.
+// Each batch copies (INSERT ... SELECT) and deletes its rows and records their PURGED change feed
+// entries in one short transaction, oldest first, so an interrupted run loses nothing and the next
+// run simply continues where it stopped.
+// Batches are separated by a pause and a run stops after max-rows-per-run, keeping the load on
+// the primary and on replication low.
+@Component
+public class UserArchiver {
+
+    private static final Logger logger = LogManager.getLogger(UserArchiver.class);
+
+    private final UserArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final UserChangeFeed changeFeed;
+    private final UserStatistics statistics;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration pause;
+    private final int maxRowsPerRun;
+
+    private final Counter archivedRows;
+    // How long the oldest overdue row has been waiting past the retention period
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public UserArchiver(UserArchiveRepository archiveRepository, PlatformTransactionManager transactionManager,
+                        UserAvailabilityIndex availabilityIndex, UserChangeFeed changeFeed,
+                        UserStatistics statistics, MeterRegistry registry,
+                        @Value("${app.users.archive.retention:P90D}") Duration retention,
+                        @Value("${app.users.archive.batch-size:500}") int batchSize,
+                        @Value("${app.users.archive.pause:PT0.2S}") Duration pause,
+                        @Value("${app.users.archive.max-rows-per-run:100000}") int maxRowsPerRun) {
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.availabilityIndex = availabilityIndex;
+        this.changeFeed = changeFeed;
+        this.statistics = statistics;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.maxRowsPerRun = maxRowsPerRun;
+        this.archivedRows = Counter.builder("users.archive.rows")
+                .description("Soft-deleted users moved to users_archive").register(registry);
+        Gauge.builder("users.archive.lag", lagSeconds, AtomicLong::get).baseUnit("seconds")
+                .description("Age of the oldest soft-deleted user past the retention period").register(registry);
+    }
+
+    @Scheduled(cron = "${app.users.archive.cron:0 0 3 * * *}")
+    public void archive() {
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = User.now().minus(retention);
+        int archived = 0;
+        int batches = 0;
+        try {
+            while (archived < maxRowsPerRun) {
+                int limit = Math.min(batchSize, maxRowsPerRun - archived);
+                Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff, limit));
+                if (moved == null || moved == 0) {
+                    break;
+                }
+                archived += moved;
+                batches++;
+                archivedRows.increment(moved);
+                availabilityIndex.removed(moved);
+                statistics.archived(moved);
+                if (moved < limit) {
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("User archival stopped after {} rows", archived, e);
+        }
+
+        Duration lag = archiveRepository.findOldestDeletedAtBefore(UserStatus.DELETED, cutoff)
+                .map(oldest -> Duration.between(oldest, cutoff))
+                .orElse(Duration.ZERO);
+        lagSeconds.set(lag.toSeconds());
+        logger.info("Archived {} deleted users in {} batches in {} ms; lag {} s", archived, batches,
+                System.currentTimeMillis() - started, lag.toSeconds());
+    }
+
+    private int archiveBatch(LocalDateTime cutoff, int limit) {
+        List<Long> ids = archiveRepository.lockArchivableIds(cutoff, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = archiveRepository.copyToArchive(ids, User.now());
+        int deleted = archiveRepository.deleteArchived(ids);
+        if (copied != deleted) {
+            // Rolls the batch back; the rows are picked up again by the next run
+            throw new IllegalStateException("Archived " + copied + " users but deleted " + deleted);
+        }
+        changeFeed.archived(ids);
+        return deleted;
+    }
+}
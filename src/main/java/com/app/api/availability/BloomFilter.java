@@ -0,0 +1,107 @@
+package com.app.api.availability;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-safe Bloom filter over strings. Bits are set with CAS on an AtomicLongArray,
+// so concurrent put() and mightContain() calls never block each other.
+// Size for n entries at false positive rate p: m = -n ln(p) / ln(2)^2 bits, k = m/n ln(2) hashes
+// (about 9.6 bits and 7 hashes per entry at p = 1%). Bit positions are h1 + i * h2 on two
+// 64-bit hashes, as in Guava, so filters above 2^32 bits are addressed in full.
+final class BloomFilter {
+
+    // Golden-ratio increment of splitmix64; the second hash is mix(h1 + this)
+    private static final long SECOND_HASH_OFFSET = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final LongAdder insertions = new LongAdder();
+
+    BloomFilter(long capacity, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    // Counts the value only when it set a bit, so adding a key again (as UserAvailabilityIndex
+    // does after commit) does not bring the capacity check forward
+    void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 + SECOND_HASH_OFFSET);
+        long combined = h1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            combined += h2;
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, word, word | mask));
+            changed |= (word & mask) == 0;
+        }
+        if (changed) {
+            insertions.increment();
+        }
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 + SECOND_HASH_OFFSET);
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            combined += h2;
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long insertions() {
+        return insertions.sum();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    // 64-bit FNV-1a followed by a murmur3 finalizer to spread the bits
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // murmur3 fmix64
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
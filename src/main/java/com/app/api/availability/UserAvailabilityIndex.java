@@ -0,0 +1,204 @@
+package com.app.api.availability;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.api.model.User;
+import com.app.api.repository.UserKeys;
+import com.app.api.repository.UserRepository;
+
+// In-memory Bloom filter of every username and email in the users table (any status).
+// A negative answer means the value is definitely free and needs no database access;
+// a positive one may be a false positive and is confirmed with an indexed exists query.
+// Keys are case-folded (User.uniqueKey), as the unique keys ignore case.
+//
+// Memory: about 9.6 bits per key at a 1% false positive rate, two keys per user,
+// so roughly 2.4 MB per million users (sized by app.users.availability.expected-users,
+// or by 1.5 times the current users when there are more).
+@Component
+public class UserAvailabilityIndex {
+
+    private static final Logger logger = LogManager.getLogger(UserAvailabilityIndex.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate buildTransaction;
+    private final TaskExecutor taskExecutor;
+    private final double falsePositiveRate;
+    private final long expectedUsers;
+
+    private volatile BloomFilter filter;
+    // Filter being rebuilt; writes go to both so none are lost during the rebuild
+    private volatile BloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Keys removed from the table since the last build; a Bloom filter cannot forget them
+    private final LongAdder staleKeys = new LongAdder();
+    private final LongAdder definitelyFree = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+
+    public UserAvailabilityIndex(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                 @Value("${app.users.availability.expected-users:1000000}") long expectedUsers,
+                                 @Value("${app.users.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        // Not read-only: with read/write splitting that would build from a replica, which can
+        // lag behind writes the index must already contain
+        this.buildTransaction = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    // Build in the background once the application is up; until then every check hits the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (isDefinitelyFree(usernameKey(username))) {
+            return true;
+        }
+        databaseChecks.increment();
+        return !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (isDefinitelyFree(emailKey(email))) {
+            return true;
+        }
+        databaseChecks.increment();
+        return !userRepository.existsByEmail(email);
+    }
+
+    private boolean isDefinitelyFree(String key) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(key)) {
+            definitelyFree.increment();
+            return true;
+        }
+        return false;
+    }
+
+    // Call in the writing transaction, before the username/email is written, so it is never
+    // reported free afterwards. The keys are added again after commit: a rebuild that started
+    // after this call but read the table before the commit would otherwise miss them.
+    public void add(String username, String email) {
+        putCurrent(username, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putCurrent(username, email);
+                }
+            });
+        }
+        BloomFilter current = filter;
+        if (current != null && current.insertions() > current.capacity()) {
+            rebuildAsync();
+        }
+    }
+
+    // `building` is read first: if it is already null, the rebuild has either not started (and
+    // its read will see the write) or has already replaced `filter`, so either way the key lands
+    // in the filter that answers queries from now on
+    private void putCurrent(String username, String email) {
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        put(next, username, email);
+        if (current != next) {
+            put(current, username, email);
+        }
+    }
+
+    // Call after users are hard-deleted; enough stale keys trigger a rebuild
+    public void removed(long users) {
+        staleKeys.add(users * 2);
+        BloomFilter current = filter;
+        if (current != null && staleKeys.sum() > current.capacity() / 10) {
+            rebuildAsync();
+        }
+    }
+
+    private static void put(BloomFilter target, String username, String email) {
+        if (target != null) {
+            target.put(usernameKey(username));
+            target.put(emailKey(email));
+        }
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + User.uniqueKey(username);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + User.uniqueKey(email);
+    }
+
+    public void rebuildAsync() {
+        if (rebuilding.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to build the username/email availability index", e);
+                } finally {
+                    building = null;
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        long userCount = userRepository.count();
+        // Two keys per user, for the expected users or, past those, the current ones plus half
+        // again as room to grow, so the filter is not rebuilt again right away
+        long capacity = Math.max(expectedUsers, userCount + userCount / 2) * 2;
+        BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+        long staleBefore = staleKeys.sum();
+        building = next;
+
+        buildTransaction.executeWithoutResult(status -> {
+            try (Stream<UserKeys> keys = userRepository.streamAllKeys()) {
+                keys.forEach(key -> put(next, key.getUsername(), key.getEmail()));
+            }
+        });
+
+        filter = next;
+        staleKeys.add(-staleBefore);
+        logger.info("Built availability index for {} users ({} KB) in {} ms", userCount,
+                next.sizeInBytes() / 1024, System.currentTimeMillis() - started);
+    }
+
+    public Map<String, Object> stats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        stats.put("keys", current == null ? 0 : current.insertions());
+        stats.put("capacity", current == null ? 0 : current.capacity());
+        stats.put("sizeBytes", current == null ? 0 : current.sizeInBytes());
+        stats.put("hashFunctions", current == null ? 0 : current.hashCount());
+        stats.put("staleKeys", staleKeys.sum());
+        stats.put("definitelyFree", definitelyFree.sum());
+        stats.put("databaseChecks", databaseChecks.sum());
+        return stats;
+    }
+}
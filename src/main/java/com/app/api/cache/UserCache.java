@@ -0,0 +1,167 @@
+package com.app.api.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.api.model.User;
+import com.app.api.model.UserStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+// Bounded read-through cache of ACTIVE users by id, with username and email
+// indexes pointing at the id. Only copies are cached, never managed entities, and callers
+// get a copy of their own, so changing a returned user never changes the cache.
+// The indexes are bounded caches of their own rather than being cleaned up when a user is
+// evicted; an index entry left behind only leads to a miss, as lookups check the user found.
+@Component
+public class UserCache {
+
+    // Ids share these slots; an invalidation only drops racing loads of ids in the same slot
+    private static final int INVALIDATION_SLOTS = 4096;
+
+    private final Cache<Long, User> usersById;
+    private final Cache<String, Long> idsByUsername;
+    private final Cache<String, Long> idsByEmail;
+
+    // Every invalidation takes the next sequence number and records it in its id's slot.
+    // A load that started before an invalidation of the same id is not cached.
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLongArray invalidatedAt = new AtomicLongArray(INVALIDATION_SLOTS);
+
+    // Guards put/evict ordering; a lock rather than synchronized so virtual threads don't pin
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Username/email lookups that missed before reaching the id cache
+    private final LongAdder indexMisses = new LongAdder();
+
+    public UserCache(@Value("${app.users.cache.max-size:10000}") long maxSize,
+                     @Value("${app.users.cache.ttl:PT10M}") Duration ttl) {
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idsByUsername = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+        this.idsByEmail = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    // Marker to pass to put() so loads that overlap a write are dropped
+    public long version() {
+        return invalidations.get();
+    }
+
+    public Optional<User> get(Long id) {
+        return Optional.ofNullable(usersById.getIfPresent(id)).map(UserCache::copyOf);
+    }
+
+    public Optional<User> getByUsername(String username) {
+        return lookup(idsByUsername.getIfPresent(username)).filter(user -> user.getUsername().equals(username));
+    }
+
+    public Optional<User> getByEmail(String email) {
+        return lookup(idsByEmail.getIfPresent(email)).filter(user -> user.getEmail().equals(email));
+    }
+
+    private Optional<User> lookup(Long id) {
+        if (id == null) {
+            indexMisses.increment();
+            return Optional.empty();
+        }
+        return get(id);
+    }
+
+    // Cache a user loaded from the database, unless it was invalidated meanwhile
+    public void put(User user, long version) {
+        if (user == null || user.getId() == null || user.getStatus() != UserStatus.ACTIVE) {
+            return;
+        }
+        User copy = copyOf(user);
+        writeLock.lock();
+        try {
+            if (invalidatedAt.get(slot(copy.getId())) > version) {
+                return;
+            }
+            usersById.put(copy.getId(), copy);
+            idsByUsername.put(copy.getUsername(), copy.getId());
+            idsByEmail.put(copy.getEmail(), copy.getId());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Drop a user now and, when called inside a transaction, again after commit
+    public void evict(Long id) {
+        evictNow(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+
+    public void evictAll(Collection<Long> ids) {
+        ids.forEach(this::evict);
+    }
+
+    private void evictNow(Long id) {
+        writeLock.lock();
+        try {
+            invalidatedAt.set(slot(id), invalidations.incrementAndGet());
+            User cached = usersById.getIfPresent(id);
+            if (cached != null) {
+                idsByUsername.asMap().remove(cached.getUsername(), id);
+                idsByEmail.asMap().remove(cached.getEmail(), id);
+            }
+            usersById.invalidate(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = usersById.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", usersById.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("indexMisses", indexMisses.sum());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("invalidations", invalidations.get());
+        return result;
+    }
+
+    private static int slot(Long id) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & (INVALIDATION_SLOTS - 1);
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setStatus(user.getStatus());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setDeletedAt(user.getDeletedAt());
+        return copy;
+    }
+}
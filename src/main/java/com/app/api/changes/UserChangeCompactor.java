@@ -0,0 +1,120 @@
+package com.app.api.changes;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.api.model.User;
+import com.app.api.model.UserChange;
+import com.app.api.repository.UserChangeRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Trims the head of the change feed. An entry goes once every named consumer seen within the
+// retention period has read past it and it is older than min-retention, or in any case once it is
+// older than the retention period. Deletes run oldest first in primary key ranges of batch-size,
+// one short transaction each, and move the compaction watermark that tells readers whose position
+// has been trimmed away (410 Gone).
+@Component
+public class UserChangeCompactor {
+
+    private static final Logger logger = LogManager.getLogger(UserChangeCompactor.class);
+
+    private final UserChangeRepository changeRepository;
+    private final UserChangeFeed changeFeed;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration minRetention;
+    private final Duration retention;
+    private final int batchSize;
+    private final Counter compactedRows;
+
+    public UserChangeCompactor(UserChangeRepository changeRepository, UserChangeFeed changeFeed,
+                               PlatformTransactionManager transactionManager, MeterRegistry registry,
+                               @Value("${app.users.changes.min-retention:PT1H}") Duration minRetention,
+                               @Value("${app.users.changes.retention:P7D}") Duration retention,
+                               @Value("${app.users.changes.compact-batch-size:1000}") int batchSize) {
+        this.changeRepository = changeRepository;
+        this.changeFeed = changeFeed;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minRetention = minRetention;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.compactedRows = Counter.builder("users.changes.compacted")
+                .description("Change feed entries removed by the compactor").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.changes.compact-interval:PT1M}")
+    public void compact() {
+        try {
+            saveConsumerPositions();
+            int removed = trim();
+            if (removed > 0) {
+                logger.info("Compacted {} user change feed entries", removed);
+            }
+        } catch (RuntimeException e) {
+            logger.error("User change feed compaction failed", e);
+        }
+    }
+
+    private void saveConsumerPositions() {
+        LocalDateTime now = User.now();
+        for (Map.Entry<String, Long> position : changeFeed.drainConsumerPositions().entrySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (changeRepository.advanceChangeConsumer(position.getKey(), position.getValue(), now) == 0) {
+                        changeRepository.insertChangeConsumer(position.getKey(), position.getValue(), now);
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Known already with a later position (or just inserted by another instance)
+            }
+        }
+    }
+
+    private int trim() {
+        LocalDateTime now = User.now();
+        LocalDateTime expired = now.minus(retention);
+        LocalDateTime settled = now.minus(minRetention);
+        long readByAll = changeRepository.findSlowestChangeConsumer(expired).orElse(0L);
+        long compactedUpTo = changeRepository.findChangesCompactedUpTo();
+        int removed = 0;
+        while (true) {
+            List<UserChange> head = changeRepository.findChangesAfter(compactedUpTo, batchSize).stream()
+                    .map(UserChange::of).toList();
+            long upTo = compactedUpTo;
+            for (UserChange change : head) {
+                boolean consumed = change.sequence() <= readByAll && change.changedAt().isBefore(settled);
+                if (!consumed && !change.changedAt().isBefore(expired)) {
+                    break;
+                }
+                upTo = change.sequence();
+            }
+            if (upTo == compactedUpTo) {
+                return removed;
+            }
+            long from = compactedUpTo;
+            long to = upTo;
+            Integer deleted = transactionTemplate.execute(status -> {
+                changeRepository.advanceChangesCompactedUpTo(to);
+                return changeRepository.deleteChanges(from, to);
+            });
+            removed += deleted == null ? 0 : deleted;
+            compactedRows.increment(deleted == null ? 0 : deleted);
+            compactedUpTo = upTo;
+            if (head.size() < batchSize) {
+                return removed;
+            }
+        }
+    }
+}
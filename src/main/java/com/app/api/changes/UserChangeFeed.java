@@ -0,0 +1,389 @@
+package com.app.api.changes;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.app.api.exception.ChangeFeedPositionExpiredException;
+import com.app.api.model.User;
+import com.app.api.model.UserChange;
+import com.app.api.model.UserChangePage;
+import com.app.api.model.UserChangeType;
+import com.app.api.model.UserStatus;
+import com.app.api.repository.UserChangeRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Feed of user changes backed by the user_changes outbox. Writers record an entry in the same
+// transaction as the change, so the feed has exactly the committed changes, in sequence order.
+//
+// Consumers read from their last position, either by long polling or over Server-Sent Events.
+// Waiting consumers cost nothing per request: one dispatcher checks the latest sequence every
+// poll-interval (immediately after a local commit), reads the new entries once per distinct
+// position and hands them to every consumer waiting there.
+//
+// An entry's insert id (seq) is taken at insert but becomes visible at commit, so a lower one can
+// appear after a higher one. Readers therefore never see it: after commit the entry is published,
+// getting a feed position above every position handed out before. Positions only grow and may
+// skip values, so a reader never has to wait on a gap or risk skipping an entry still in flight.
+@Component
+public class UserChangeFeed {
+
+    private static final Logger logger = LogManager.getLogger(UserChangeFeed.class);
+
+    private static final Pattern CONSUMER_NAME = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final UserChangeRepository changeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final int batchSize;
+    private final int defaultLimit;
+    private final Duration maxWait;
+    private final Duration heartbeat;
+    private final Duration streamTimeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    private volatile long lastHeartbeat = System.nanoTime();
+
+    // Positions reported by named consumers since the compactor last saved them
+    private final Map<String, Long> consumerPositions = new ConcurrentHashMap<>();
+
+    private final AtomicLong latestSequence = new AtomicLong();
+    private final Counter delivered;
+
+    public UserChangeFeed(UserChangeRepository changeRepository, PlatformTransactionManager transactionManager,
+                          MeterRegistry registry,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                          @Value("${app.users.changes.batch-size:500}") int batchSize,
+                          @Value("${app.users.changes.default-limit:100}") int defaultLimit,
+                          @Value("${app.users.changes.max-wait:PT30S}") Duration maxWait,
+                          @Value("${app.users.changes.heartbeat:PT15S}") Duration heartbeat,
+                          @Value("${app.users.changes.stream-timeout:PT30M}") Duration streamTimeout) {
+        this.changeRepository = changeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.batchSize = batchSize;
+        this.defaultLimit = defaultLimit;
+        this.maxWait = maxWait;
+        this.heartbeat = heartbeat;
+        this.streamTimeout = streamTimeout;
+        this.delivered = Counter.builder("users.changes.delivered")
+                .description("Change feed entries sent to waiting consumers").register(registry);
+        Gauge.builder("users.changes.subscribers", subscribers, Set::size)
+                .description("Consumers waiting on the change feed (long polls and streams)").register(registry);
+        Gauge.builder("users.changes.latest", latestSequence, AtomicLong::get)
+                .description("Latest sequence seen in the change feed").register(registry);
+    }
+
+    // Records one entry per user with its current public fields; call inside the writing
+    // transaction, after the change has been flushed
+    public void recorded(UserChangeType type, Collection<Long> userIds) {
+        requireTransaction();
+        if (type == UserChangeType.PURGED) {
+            LocalDateTime now = User.now();
+            userIds.forEach(id -> changeRepository.insertRemovedChange(id, type.name(), now));
+        } else if (!userIds.isEmpty()) {
+            changeRepository.insertChanges(userIds, type.name(), User.now());
+        }
+        afterCommit();
+    }
+
+    // Records users about to move to another status; call inside the transaction, before the bulk
+    // UPDATE. Users already in that status are skipped, as they are by the UPDATE.
+    public void statusChanging(Collection<Long> userIds, UserStatus status) {
+        requireTransaction();
+        UserChangeType type = status == UserStatus.DELETED ? UserChangeType.DELETED : UserChangeType.UPDATED;
+        changeRepository.insertStatusChanges(userIds, type.name(), status.name(), User.now());
+        afterCommit();
+    }
+
+    // Records a PURGED entry per user just moved to users_archive; call inside the archiving
+    // transaction, after the copy, so the entries commit or roll back with the batch
+    public void archived(Collection<Long> userIds) {
+        requireTransaction();
+        changeRepository.insertArchivedChanges(userIds, UserChangeType.PURGED.name(), User.now());
+        afterCommit();
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Change feed entries must be written in the transaction of the change");
+        }
+    }
+
+    private void afterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatchAsync();
+            }
+        });
+    }
+
+    // Up to `limit` committed changes after the position. With a wait (long poll) and nothing new,
+    // answers when the first changes arrive, or with an empty page once the wait is over.
+    public DeferredResult<UserChangePage> poll(long after, Integer limit, Integer waitSeconds, String consumer) {
+        int size = limit == null ? defaultLimit : limit;
+        if (after < 0 || size < 1 || size > batchSize) {
+            throw new IllegalArgumentException("after must be 0 or more and limit between 1 and " + batchSize + ".");
+        }
+        Duration wait = Duration.ofSeconds(waitSeconds == null ? 0 : waitSeconds);
+        if (wait.isNegative() || wait.compareTo(maxWait) > 0) {
+            throw new IllegalArgumentException("wait must be between 0 and " + maxWait.toSeconds() + " seconds.");
+        }
+        checkConsumer(consumer);
+        report(consumer, after);
+        DeferredResult<UserChangePage> result = new DeferredResult<>(wait.toMillis(), () -> page(after, List.of()));
+        List<UserChange> changes = changesAfter(after, size);
+        if (!changes.isEmpty() || wait.isZero()) {
+            result.setResult(page(after, changes));
+            return result;
+        }
+        Subscriber subscriber = new Subscriber(after, size, consumer, result, null);
+        result.onCompletion(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return result;
+    }
+
+    // Server-Sent Events from the position on: one "user-change" event per entry, with the
+    // sequence as the event id, so a reconnecting client resumes with Last-Event-ID
+    public SseEmitter stream(long after, String consumer) {
+        if (after < 0) {
+            throw new IllegalArgumentException("after must be 0 or more.");
+        }
+        checkConsumer(consumer);
+        report(consumer, after);
+        checkNotCompacted(after);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(after, batchSize, consumer, null, emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        dispatchAsync();
+        return emitter;
+    }
+
+    private UserChangePage page(long after, List<UserChange> changes) {
+        return new UserChangePage(changes, changes.isEmpty() ? after : changes.get(changes.size() - 1).sequence());
+    }
+
+    private List<UserChange> changesAfter(long after, int limit) {
+        List<UserChange> changes = changeRepository.findChangesAfter(after, limit).stream().map(UserChange::of).toList();
+        if (changes.isEmpty() || changes.get(0).sequence() != after + 1) {
+            checkNotCompacted(after);
+        }
+        return changes;
+    }
+
+    // Gives committed entries their positions, in batches of batch-size. The sequencer row lock
+    // makes instances take turns, and each batch starts above the last position handed out, so an
+    // entry committed later can never land below one a reader has already passed.
+    void publish() {
+        // Unlocked look first, so the common case (nothing new) takes no lock
+        while (!changeRepository.findUnpublishedChanges(1).isEmpty()) {
+            Integer published = transactionTemplate.execute(status -> {
+                long last = changeRepository.lockLastChangePosition();
+                List<Long> pending = changeRepository.findUnpublishedChanges(batchSize);
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                // seq order is kept; the gaps between seqs carry over into the positions
+                long offset = last + 1 - pending.get(0);
+                changeRepository.publishChanges(pending, offset);
+                changeRepository.updateLastChangePosition(pending.get(pending.size() - 1) + offset);
+                return pending.size();
+            });
+            if (published == null || published < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void checkNotCompacted(long after) {
+        long compactedUpTo = changeRepository.findChangesCompactedUpTo();
+        if (after < compactedUpTo) {
+            // Taken before the reload, so resuming from here can only repeat changes, never miss one
+            long latest = Math.max(changeRepository.findLatestChangeSequence(), compactedUpTo);
+            throw new ChangeFeedPositionExpiredException("Changes after " + after + " are no longer available. "
+                    + "Reload the users and resume from sequence " + latest + ".");
+        }
+    }
+
+    // Named consumers hold back compaction until they have read past an entry
+    private static void checkConsumer(String consumer) {
+        if (consumer != null && !CONSUMER_NAME.matcher(consumer).matches()) {
+            throw new IllegalArgumentException("consumer must be 1 to 64 letters, digits, '.', '_' or '-'.");
+        }
+    }
+
+    private void report(String consumer, long position) {
+        if (consumer != null) {
+            consumerPositions.merge(consumer, position, Math::max);
+        }
+    }
+
+    // Positions reported since the last call, for the compactor to save
+    Map<String, Long> drainConsumerPositions() {
+        Map<String, Long> drained = new HashMap<>();
+        consumerPositions.keySet().forEach(name -> drained.put(name, consumerPositions.remove(name)));
+        drained.values().removeIf(position -> position == null);
+        return drained;
+    }
+
+    // Also publishes entries committed on other instances, or whose local publish failed
+    @Scheduled(fixedDelayString = "${app.users.changes.poll-interval:PT1S}")
+    public void checkForChanges() {
+        dispatchAsync();
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (System.nanoTime() - lastHeartbeat > heartbeat.toNanos()) {
+            lastHeartbeat = System.nanoTime();
+            // Keeps idle streams open through proxies and finds clients that went away
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.emitter != null) {
+                    try {
+                        subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } catch (IOException | IllegalStateException e) {
+                        subscribers.remove(subscriber);
+                    }
+                }
+            }
+        }
+    }
+
+    private void dispatchAsync() {
+        dispatchRequested.set(true);
+        if (!dispatching.compareAndSet(false, true)) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            try {
+                while (dispatchRequested.getAndSet(false)) {
+                    publish();
+                    if (!subscribers.isEmpty()) {
+                        dispatch();
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to dispatch user changes", e);
+            } finally {
+                dispatching.set(false);
+            }
+            // A request that arrived while the loop was finishing
+            if (dispatchRequested.get()) {
+                dispatchAsync();
+            }
+        });
+    }
+
+    private void dispatch() {
+        long latest = changeRepository.findLatestChangeSequence();
+        latestSequence.set(latest);
+        Map<Long, List<UserChange>> byPosition = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            long position = subscriber.position;
+            if (position >= latest) {
+                continue;
+            }
+            List<UserChange> changes;
+            try {
+                changes = byPosition.computeIfAbsent(position, p -> changesAfter(p, batchSize));
+            } catch (ChangeFeedPositionExpiredException e) {
+                subscriber.fail(e);
+                subscribers.remove(subscriber);
+                continue;
+            }
+            if (changes.isEmpty()) {
+                continue;
+            }
+            if (subscriber.deliver(changes)) {
+                report(subscriber.consumer, subscriber.position);
+                // A full batch means the consumer is behind; go round again for the rest
+                if (changes.size() == batchSize && subscriber.emitter != null) {
+                    dispatchRequested.set(true);
+                }
+            }
+            if (subscriber.emitter == null || subscriber.failed) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        volatile long position;
+        final int limit;
+        final String consumer;
+        final DeferredResult<UserChangePage> result;
+        final SseEmitter emitter;
+        volatile boolean failed;
+
+        Subscriber(long position, int limit, String consumer, DeferredResult<UserChangePage> result, SseEmitter emitter) {
+            this.position = position;
+            this.limit = limit;
+            this.consumer = consumer;
+            this.result = result;
+            this.emitter = emitter;
+        }
+
+        boolean deliver(List<UserChange> changes) {
+            List<UserChange> batch = changes.size() > limit ? changes.subList(0, limit) : changes;
+            if (result != null) {
+                if (result.setResult(page(position, batch))) {
+                    delivered.increment(batch.size());
+                }
+                return true;
+            }
+            try {
+                for (UserChange change : batch) {
+                    emitter.send(SseEmitter.event().id(String.valueOf(change.sequence())).name("user-change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                    position = change.sequence();
+                    delivered.increment();
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                failed = true;
+                return false;
+            }
+        }
+
+        void fail(ChangeFeedPositionExpiredException e) {
+            if (result != null) {
+                result.setErrorResult(e);
+            } else {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
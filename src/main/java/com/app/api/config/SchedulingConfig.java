@@ -0,0 +1,11 @@
+package com.app.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (@Scheduled) such as archiving long-deleted users. The pool has a thread per
+// job (spring.task.scheduling.pool.size), so the archiver cannot starve the change feed poll.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
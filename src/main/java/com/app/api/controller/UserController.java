@@ -1,20 +1,61 @@
 package com.app.api.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import com.app.api.availability.UserAvailabilityIndex;
+import com.app.api.cache.UserCache;
+import com.app.api.changes.UserChangeFeed;
 import com.app.api.exception.DuplicateFieldException;
+import com.app.api.logging.RequestLogSampler;
+import com.app.api.metrics.UserMetrics;
+import com.app.api.model.BulkStatusRequest;
+import com.app.api.model.BulkUserResult;
 import com.app.api.model.LoginRequest;
+import com.app.api.model.LoginResponse;
+import com.app.api.model.RefreshTokenRequest;
 import com.app.api.model.User;
+import com.app.api.model.UserPage;
+import com.app.api.model.UserPatch;
+import com.app.api.model.UserSearchResult;
+import com.app.api.model.UserStatus;
+import com.app.api.model.UserView;
+import com.app.api.search.UserSearchIndex;
+import com.app.api.security.LoginRateLimiter;
+import com.app.api.security.TokenService;
 import com.app.api.service.UserService;
+import com.app.api.statistics.UserStatistics;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -22,23 +63,55 @@ import java.util.Optional;
 @RequestMapping("/api")
 public class UserController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final ObjectWriter exportWriter;
+    private final ObjectReader bulkReader;
+    private final UserCache userCache;
+    private final TokenService tokenService;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final UserMetrics userMetrics;
+    private final RequestLogSampler logSampler;
+    private final UserSearchIndex searchIndex;
+    private final LoginRateLimiter loginRateLimiter;
+    private final UserChangeFeed changeFeed;
+    private final UserStatistics statistics;
+    private final int bulkMaxSize;
     private static final Logger logger = LogManager.getLogger(UserController.class);
 
     @Autowired
-    public UserController(UserService userService, PasswordEncoder passwordEncoder) {
+    public UserController(UserService userService, PasswordEncoder passwordEncoder, ObjectMapper objectMapper,
+                          UserCache userCache, TokenService tokenService, UserAvailabilityIndex availabilityIndex,
+                          UserMetrics userMetrics, RequestLogSampler logSampler, UserSearchIndex searchIndex,
+                          LoginRateLimiter loginRateLimiter, UserChangeFeed changeFeed,
+                          UserStatistics statistics,
+                          @Value("${app.users.bulk.max-size:10000}") int bulkMaxSize) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+        this.tokenService = tokenService;
+        this.availabilityIndex = availabilityIndex;
+        this.userMetrics = userMetrics;
+        this.logSampler = logSampler;
+        this.searchIndex = searchIndex;
+        this.loginRateLimiter = loginRateLimiter;
+        this.changeFeed = changeFeed;
+        this.statistics = statistics;
+        this.bulkMaxSize = bulkMaxSize;
+        this.exportWriter = objectMapper.writerFor(UserView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.bulkReader = objectMapper.readerFor(User.class);
     }
 
     // Register user
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody User user) {
-        logger.info("Attempting to register user with username: {}", user.getUsername());
+        logSampler.info(logger, "register", "Attempting to register user with username: {}", user.getUsername());
         try {
             User savedUser = userService.save(user);
-            logger.info("User registration successful for username: {}", savedUser.getUsername());
+            logSampler.info(logger, "register", "User registration successful for username: {}", savedUser.getUsername());
             return new ResponseEntity<>(savedUser, HttpStatus.CREATED);
         } catch (DuplicateFieldException e) {
             logger.warn("DuplicateFieldException: {}", e.getMessage());
@@ -49,51 +122,235 @@ public class UserController {
         }
     }
 
-    // Login
+    // Register a batch of users sent as a JSON array
+    @PostMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> registerUsers(@RequestBody List<User> users) {
+        logger.info("Attempting bulk registration of {} users", users.size());
+        return bulkRegister(users);
+    }
+
+    // Register a batch of users sent as newline-delimited JSON. This is another encoding of the
+    // same batch, not a stream: rows are validated and deduplicated against each other before any
+    // is saved, so the batch is held in memory like the JSON array. Reading stops one row past
+    // app.users.bulk.max-size, which saveAll then rejects, so an oversized body is never read whole.
+    @PostMapping(value = "/users/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<?> registerUsersNdjson(InputStream body) throws IOException {
+        List<User> users = new ArrayList<>();
+        try (MappingIterator<User> iterator = bulkReader.readValues(body)) {
+            while (users.size() <= bulkMaxSize && iterator.hasNextValue()) {
+                users.add(iterator.nextValue());
+            }
+        }
+        logger.info("Attempting bulk registration of {} users from NDJSON", users.size());
+        return bulkRegister(users);
+    }
+
+    private ResponseEntity<?> bulkRegister(List<User> users) {
+        try {
+            List<BulkUserResult> results = userService.saveAll(users);
+            long created = results.stream().filter(r -> r.getStatus() == BulkUserResult.Status.CREATED).count();
+            logger.info("Bulk registration finished: {} of {} users created", created, results.size());
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.error("IllegalArgumentException during bulk registration: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Login: issues a short-lived access token and a refresh token
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody LoginRequest loginRequest) {
-        logger.info("Attempting login for username: {}", loginRequest.getUsername());
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        logSampler.info(logger, "login", "Attempting login for username: {}", loginRequest.getUsername());
+        // Throttled before the lookup and the hash, so rejected attempts cost neither
+        loginRateLimiter.acquire(request.getRemoteAddr(), loginRequest.getUsername());
         User user = userService.findByUsername(loginRequest.getUsername());
 
         if (user != null && passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            logger.info("Login successful for username: {}", loginRequest.getUsername());
-            return ResponseEntity.ok("Login successful");
+            logSampler.info(logger, "login", "Login successful for username: {}", loginRequest.getUsername());
+            userMetrics.loginSucceeded();
+            return ResponseEntity.ok(issueTokens(user, "Login successful"));
         } else {
             logger.warn("Login failed for username: {}", loginRequest.getUsername());
+            userMetrics.loginFailed();
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
         }
     }
 
-    // Retrieve a user by ID
+    // Exchange a refresh token for a new token pair
+    @PostMapping("/token/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request) {
+        Optional<TokenService.TokenClaims> claims = request.getRefreshToken() == null
+                ? Optional.empty()
+                : tokenService.verify(request.getRefreshToken(), TokenService.REFRESH);
+        Optional<User> user = claims.flatMap(c -> userService.findById(c.userId()));
+        if (user.isEmpty()) {
+            logger.warn("Token refresh rejected");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid or expired refresh token");
+        }
+        logSampler.info(logger, "token-refresh", "Token refreshed for username: {}", user.get().getUsername());
+        return ResponseEntity.ok(issueTokens(user.get(), "Token refreshed"));
+    }
+
+    private LoginResponse issueTokens(User user, String message) {
+        return new LoginResponse(message, tokenService.issueAccessToken(user), tokenService.issueRefreshToken(user),
+                tokenService.getAccessTtlSeconds());
+    }
+
+    // Check whether a username and/or email can still be registered
+    @GetMapping("/users/availability")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            return new ResponseEntity<>("Provide a username and/or an email.", HttpStatus.BAD_REQUEST);
+        }
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", availabilityIndex.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", availabilityIndex.isEmailAvailable(email));
+        }
+        return new ResponseEntity<>(availability, HttpStatus.OK);
+    }
+
+    // Type-ahead search of active users by name, username or email
+    @GetMapping("/users/search")
+    public ResponseEntity<?> searchUsers(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) Integer limit) {
+        try {
+            List<UserSearchResult> results = userService.searchUsers(q, limit);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Changes after a feed position; with wait (seconds) it long-polls until changes arrive
+    @GetMapping("/users/changes")
+    public DeferredResult<?> getUserChanges(@RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) Integer wait,
+                                            @RequestParam(required = false) String consumer) {
+        try {
+            return changeFeed.poll(after, limit, wait, consumer);
+        } catch (IllegalArgumentException e) {
+            DeferredResult<Object> result = new DeferredResult<>();
+            result.setResult(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+            return result;
+        }
+    }
+
+    // Changes as Server-Sent Events; a reconnecting EventSource resumes from Last-Event-ID
+    @GetMapping(value = "/users/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUserChanges(@RequestParam(required = false) Long after,
+                                                        @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                                        @RequestParam(required = false) String consumer) {
+        long position = lastEventId != null ? lastEventId : after != null ? after : 0;
+        try {
+            return ResponseEntity.ok(changeFeed.stream(position, consumer));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected change stream request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Retrieve a user by ID; If-None-Match is answered from a version lookup before loading the user
     @GetMapping("/users/{id}")
-    public ResponseEntity<?> getUserById(@PathVariable Long id) {
-        logger.info("Fetching user details for ID: {}", id);
-        Optional<User> user = userService.findById(id);
+    public ResponseEntity<?> getUserById(@PathVariable Long id,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logSampler.info(logger, "get-user", "Fetching user details for ID: {}", id);
+        if (ifNoneMatch != null) {
+            Optional<LocalDateTime> version = userService.findVersionById(id);
+            if (version.isPresent() && UserETags.matchesWeak(ifNoneMatch, UserETags.of(id, version.get(), accept))) {
+                logSampler.info(logger, "get-user", "User not modified for ID: {}", id);
+                return notModified(UserETags.of(id, version.get(), accept));
+            }
+        }
+        Optional<UserView> user = userService.findViewById(id);
         if (user.isPresent()) {
-            logger.info("User found for ID: {}", id);
-            return new ResponseEntity<>(user.get(), HttpStatus.OK);
+            logSampler.info(logger, "get-user", "User found for ID: {}", id);
+            return ResponseEntity.ok().eTag(UserETags.of(id, user.get().updatedAt(), accept))
+                    .cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT).body(user.get());
         } else {
             logger.warn("User not found for ID: {}", id);
             return new ResponseEntity<>("User not found", HttpStatus.NOT_FOUND);
         }
     }
 
-    // Retrieve all users
+    // Retrieve all users, or a single page when limit/after are given.
+    // The list ETag covers the id and updatedAt of every row (and the look-ahead row of a page);
+    // it comes from a light version query, so If-None-Match is answered before users are loaded.
+    // It is computed before the body, so a concurrent write can only make it older, never newer.
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.info("Fetching all users");
-        List<User> users = userService.findAllUsers();
-        return new ResponseEntity<>(users, HttpStatus.OK);
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String after,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        boolean paged = limit != null || after != null;
+        try {
+            String etag = UserETags.ofCollection(paged
+                    ? userService.findUsersPageVersions(after, limit)
+                    : userService.findAllUserVersions());
+            if (UserETags.matchesWeak(ifNoneMatch, etag)) {
+                logSampler.info(logger, "list-users", "Users list not modified");
+                return notModified(etag);
+            }
+
+            if (!paged) {
+                logSampler.info(logger, "list-users", "Fetching all users");
+                List<UserView> users = userService.findAllUsers();
+                return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                        .body(users);
+            }
+
+            logSampler.info(logger, "list-users", "Fetching users page after cursor: {}", after);
+            UserPage page = userService.findUsersPage(after, limit);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT)
+                    .body(page);
+        } catch (IllegalArgumentException e) {
+            logger.warn("IllegalArgumentException while fetching users page: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+
+    // Export users as newline-delimited JSON, streamed straight to the response
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        logger.info("Exporting users with status: {}, updated since: {}", status, since);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = exportWriter.createGenerator(outputStream)) {
+                // One object per line, no separator between root values
+                generator.setRootValueSeparator(null);
+                userService.exportUsers(status, since, user -> {
+                    try {
+                        exportWriter.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
-    // Update user
+    // Update user; with If-Match the update only happens if the ETag is still current
     @PutMapping("/users/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails) {
-        logger.info("Updating user with ID: {}", id);
+    public ResponseEntity<?> updateUser(@PathVariable Long id, @Valid @RequestBody User userDetails,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logSampler.info(logger, "update-user", "Updating user with ID: {}", id);
         try {
-            User updatedUser = userService.updateUser(id, userDetails);
-            logger.info("User updated successfully for ID: {}", id);
-            return new ResponseEntity<>(updatedUser, HttpStatus.OK);
+            User updatedUser = userService.updateUser(id, userDetails,
+                    ifMatch == null ? null : version -> UserETags.matchesStrong(ifMatch, id, version));
+            logSampler.info(logger, "update-user", "User updated successfully for ID: {}", id);
+            return ResponseEntity.ok().eTag(UserETags.of(id, updatedUser.getUpdatedAt(), accept)).body(updatedUser);
         } catch (DuplicateFieldException e) {
             logger.warn("DuplicateFieldException while updating user: {}", e.getMessage());
             return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
@@ -103,12 +360,32 @@ public class UserController {
         }
     }
 
+    // Partially update user (JSON Merge Patch); only the fields present in the body change
+    @PatchMapping(value = "/users/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchUser(@PathVariable Long id, @RequestBody UserPatch patch,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logSampler.info(logger, "patch-user", "Patching user with ID: {}", id);
+        try {
+            User updatedUser = userService.patchUser(id, patch,
+                    ifMatch == null ? null : version -> UserETags.matchesStrong(ifMatch, id, version));
+            logSampler.info(logger, "patch-user", "User patched successfully for ID: {}", id);
+            return ResponseEntity.ok().eTag(UserETags.of(id, updatedUser.getUpdatedAt(), accept)).body(updatedUser);
+        } catch (DuplicateFieldException e) {
+            logger.warn("DuplicateFieldException while patching user: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            logger.warn("IllegalArgumentException while patching user: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // Soft delete user
     @DeleteMapping("/users/{id}")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        logger.info("Soft deleting user with ID: {}", id);
+        logSampler.info(logger, "delete-user", "Soft deleting user with ID: {}", id);
         userService.delete(id);
-        logger.info("User soft deleted successfully for ID: {}", id);
+        logSampler.info(logger, "delete-user", "User soft deleted successfully for ID: {}", id);
         return new ResponseEntity<>("User deleted successfully", HttpStatus.OK);
     }
 
@@ -120,4 +397,61 @@ public class UserController {
         logger.info("User permanently deleted for ID: {}", id);
         return new ResponseEntity<>("User permanently deleted", HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    // Bulk soft delete users
+    @PostMapping("/users/bulk/delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody BulkStatusRequest request) {
+        return bulkUpdateStatus(request, UserStatus.DELETED);
+    }
+
+    // Bulk deactivate users
+    @PostMapping("/users/bulk/deactivate")
+    public ResponseEntity<?> bulkDeactivate(@RequestBody BulkStatusRequest request) {
+        return bulkUpdateStatus(request, UserStatus.INACTIVE);
+    }
+
+    // Bulk reactivate users
+    @PostMapping("/users/bulk/reactivate")
+    public ResponseEntity<?> bulkReactivate(@RequestBody BulkStatusRequest request) {
+        return bulkUpdateStatus(request, UserStatus.ACTIVE);
+    }
+
+    private ResponseEntity<?> bulkUpdateStatus(BulkStatusRequest request, UserStatus status) {
+        logger.info("Bulk updating users to status: {}", status);
+        try {
+            int affected = userService.updateStatus(request, status);
+            logger.info("Bulk status update to {} changed {} users", status, affected);
+            return new ResponseEntity<>(Map.of("affected", affected), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.warn("IllegalArgumentException during bulk status update: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // User cache statistics
+    @GetMapping("/users/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return new ResponseEntity<>(userCache.stats(), HttpStatus.OK);
+    }
+
+    // Availability index statistics
+    @GetMapping("/users/availability/stats")
+    public ResponseEntity<Map<String, Object>> getAvailabilityStats() {
+        return new ResponseEntity<>(availabilityIndex.stats(), HttpStatus.OK);
+    }
+
+    // Search index statistics
+    @GetMapping("/users/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return new ResponseEntity<>(searchIndex.stats(), HttpStatus.OK);
+    }
+
+    // User counts by status and registrations per day for the last `days` days, from in-memory counters
+    @GetMapping("/users/stats")
+    public ResponseEntity<?> getUserStats(@RequestParam(defaultValue = "30") int days) {
+        if (days < 1 || days > statistics.getDays()) {
+            return new ResponseEntity<>("days must be between 1 and " + statistics.getDays(), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(statistics.stats(days), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,133 @@
+package com.app.api.controller;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import com.app.api.repository.UserVersion;
+
+// ETags for user resources. A single user gets a strong tag derived from id + updatedAt and the
+// encoding it is served in (JSON, CBOR or Smile), since a strong tag promises identical bytes;
+// those responses stay below the compression threshold. List pages get a weak tag derived from
+// the ids and versions of every row, because they may be gzipped (Tomcat never compresses a
+// strong-ETag response).
+final class UserETags {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final Map<MediaType, String> ENCODINGS = new LinkedHashMap<>();
+
+    static {
+        // Same preference as content negotiation: JSON wins for wildcards
+        ENCODINGS.put(MediaType.APPLICATION_JSON, "");
+        ENCODINGS.put(CBOR, "-cbor");
+        ENCODINGS.put(SMILE, "-smile");
+    }
+
+    private UserETags() {}
+
+    // The tag of the representation a request with this Accept header is served
+    static String of(Long id, LocalDateTime updatedAt, String accept) {
+        return tag(id, updatedAt, encoding(accept));
+    }
+
+    private static String tag(Long id, LocalDateTime updatedAt, String encoding) {
+        return "\"" + id + "-" + Long.toString(micros(updatedAt), 36) + encoding + "\"";
+    }
+
+    static String ofCollection(List<UserVersion> versions) {
+        // 64-bit FNV-1a over (id, updatedAt) pairs; the row count is part of the tag as well
+        long hash = 0xcbf29ce484222325L;
+        for (UserVersion version : versions) {
+            hash = mix(hash, version.getId());
+            hash = mix(hash, micros(version.getUpdatedAt()));
+        }
+        return "W/\"c" + versions.size() + "-" + Long.toUnsignedString(hash, 36) + "\"";
+    }
+
+    // If-None-Match: weak comparison, so W/ prefixes are ignored; "*" matches any tag
+    static boolean matchesWeak(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : header.split(",")) {
+            String tag = stripWeak(candidate.trim());
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-Match: strong comparison (RFC 9110 13.1.1), so a weak tag never matches. Every encoding
+    // of the current version is the current representation, so the tag of any of them is accepted.
+    static boolean matchesStrong(String header, Long id, LocalDateTime updatedAt) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            for (String encoding : ENCODINGS.values()) {
+                if (tag.equals(tag(id, updatedAt, encoding))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    // The encoding content negotiation picks for this Accept header: highest quality first, and
+    // at equal quality a concrete type before a wildcard
+    private static String encoding(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        accepted.sort(Comparator.<MediaType>comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(MediaType::isWildcardType)
+                .thenComparing(MediaType::isWildcardSubtype));
+        for (MediaType type : accepted) {
+            for (Map.Entry<MediaType, String> encoding : ENCODINGS.entrySet()) {
+                if (type.getQualityValue() > 0 && type.includes(encoding.getKey())) {
+                    return encoding.getValue();
+                }
+            }
+        }
+        return "";
+    }
+
+    private static long micros(LocalDateTime time) {
+        if (time == null) {
+            return 0;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
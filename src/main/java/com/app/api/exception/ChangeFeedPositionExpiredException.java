@@ -0,0 +1,7 @@
+package com.app.api.exception;
+
+public class ChangeFeedPositionExpiredException extends RuntimeException {
+    public ChangeFeedPositionExpiredException(String message) {
+        super(message);
+    }
+}
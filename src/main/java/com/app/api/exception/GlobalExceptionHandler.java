@@ -1,5 +1,6 @@
 package com.app.api.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -36,6 +37,34 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND); // 404 Not Found
     }
 
+    // Handle HashingCapacityException (password hashing queue is full)
+    @ExceptionHandler(HashingCapacityException.class)
+    public ResponseEntity<String> handleHashingCapacityException(HashingCapacityException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE) // 503 Service Unavailable
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    // Handle TooManyLoginAttemptsException (login rate limit for the client IP or username)
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<String> handleTooManyLoginAttemptsException(TooManyLoginAttemptsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS) // 429 Too Many Requests
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
+    // Handle PreconditionFailedException (If-Match did not match the current version)
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED); // 412 Precondition Failed
+    }
+
+    // Handle ChangeFeedPositionExpiredException (the changes after that position were compacted)
+    @ExceptionHandler(ChangeFeedPositionExpiredException.class)
+    public ResponseEntity<String> handleChangeFeedPositionExpiredException(ChangeFeedPositionExpiredException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.GONE); // 410 Gone
+    }
+
     // Handle InvalidUpdateException (for status-based update restrictions)
     @ExceptionHandler(InvalidUpdateException.class)
     public ResponseEntity<String> handleInvalidUpdateException(InvalidUpdateException ex) {
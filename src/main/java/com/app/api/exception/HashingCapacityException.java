@@ -0,0 +1,15 @@
+package com.app.api.exception;
+
+public class HashingCapacityException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public HashingCapacityException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,292 @@
+package com.app.api.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.app.api.model.IdempotencyRecord;
+import com.app.api.model.User;
+import com.app.api.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Responses of writes sent with an Idempotency-Key, so a retry is answered without running again.
+// The first request with a key claims it and runs; duplicates arriving meanwhile wait on its
+// future and get the same response. Keys live in a Caffeine cache, whose map locks per bin so
+// claims on different keys never contend, bounded by an estimate of their memory and expiring
+// `ttl` after the response was stored.
+// With app.idempotency.persistent the claim is also an insert into idempotency_keys and the
+// response is written there, so retries reaching another instance, or arriving after a restart,
+// are replayed as well. A claim left behind by a dead instance is taken over after lock-timeout.
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LogManager.getLogger(IdempotencyStore.class);
+
+    // Caffeine node, entry, future and response headers; the key and body are added per entry
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    // How often a duplicate checks a key claimed by another instance
+    private static final long PERSISTENT_POLL_MILLIS = 100;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration lockTimeout;
+    private final Cache<String, Entry> entries;
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    record Response(int status, String contentType, String etag, byte[] body) {}
+
+    enum Outcome { EXECUTE, REPLAY, MISMATCH, IN_PROGRESS }
+
+    // EXECUTE: the caller holds the key and must end with complete() or release()
+    static final class Claim {
+        final Outcome outcome;
+        final Response response;
+        final String key;
+        final Entry entry;
+        final boolean persisted;
+
+        private Claim(Outcome outcome, Response response, String key, Entry entry, boolean persisted) {
+            this.outcome = outcome;
+            this.response = response;
+            this.key = key;
+            this.entry = entry;
+            this.persisted = persisted;
+        }
+    }
+
+    // A claimed key; `result` completes with the response, or with null if its owner gave up
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<Response> result;
+
+        Entry(String fingerprint, CompletableFuture<Response> result) {
+            this.fingerprint = fingerprint;
+            this.result = result;
+        }
+
+        int weight(String key) {
+            Response response = result.getNow(null);
+            return ENTRY_OVERHEAD_BYTES + 2 * key.length() + (response == null ? 0 : response.body().length);
+        }
+    }
+
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository, PlatformTransactionManager transactionManager,
+                            MeterRegistry registry,
+                            @Value("${app.idempotency.persistent:false}") boolean persistent,
+                            @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${app.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                            @Value("${app.idempotency.lock-timeout:PT2M}") Duration lockTimeout,
+                            @Value("${app.idempotency.max-memory:64MB}") DataSize maxMemory) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.lockTimeout = lockTimeout;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((String key, Entry entry) -> entry.weight(key))
+                .expireAfterWrite(ttl)
+                .build();
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("idempotency.requests")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .description("Requests sent with an Idempotency-Key, by outcome").register(registry));
+        }
+        Gauge.builder("idempotency.keys", entries, Cache::estimatedSize)
+                .description("Idempotency keys held in memory").register(registry);
+        Gauge.builder("idempotency.memory", entries,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes").description("Estimated memory held by the idempotency keys").register(registry);
+    }
+
+    // Claims `key` for a request with the given fingerprint, waiting up to wait-timeout while
+    // another request with the key runs
+    Claim claim(String key, String fingerprint) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+            Entry existing = entries.asMap().putIfAbsent(key, mine);
+            if (existing == null) {
+                return persistent ? claimPersistent(key, mine, deadline) : counted(Outcome.EXECUTE, null, key, mine, false);
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                return counted(Outcome.MISMATCH, null, key, null, false);
+            }
+            try {
+                Response response = existing.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (response != null) {
+                    return counted(Outcome.REPLAY, response, key, null, false);
+                }
+                // The first request ended without a response worth keeping; claim the key again
+            } catch (TimeoutException e) {
+                return counted(Outcome.IN_PROGRESS, null, key, null, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return counted(Outcome.IN_PROGRESS, null, key, null, false);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private Claim claimPersistent(String key, Entry mine, long deadline) {
+        String keyHash = sha256(key);
+        try {
+            while (true) {
+                LocalDateTime now = User.now();
+                Optional<IdempotencyRecord> found = recordRepository.findById(keyHash);
+                if (found.isEmpty()) {
+                    if (insert(keyHash, mine.fingerprint, now)) {
+                        return counted(Outcome.EXECUTE, null, key, mine, true);
+                    }
+                    continue; // claimed by another instance a moment ago
+                }
+                IdempotencyRecord record = found.get();
+                if (!record.getExpiresAt().isAfter(now)) {
+                    transactionTemplate.execute(status -> recordRepository.deleteExpired(keyHash, now));
+                } else if (!record.getRequestHash().equals(mine.fingerprint)) {
+                    abandon(key, mine);
+                    return counted(Outcome.MISMATCH, null, key, null, false);
+                } else if (record.getResponseStatus() != null) {
+                    Response response = new Response(record.getResponseStatus(), record.getContentType(),
+                            record.getEtag(), record.getBody() == null ? new byte[0] : record.getBody());
+                    store(key, mine, response);
+                    return counted(Outcome.REPLAY, response, key, null, false);
+                } else if (record.getCreatedAt().isBefore(now.minus(lockTimeout)) && takeOver(keyHash, mine.fingerprint, now)) {
+                    logger.warn("Took over an idempotency key whose request did not finish within {}", lockTimeout);
+                    return counted(Outcome.EXECUTE, null, key, mine, true);
+                } else if (deadline - System.nanoTime() <= 0) {
+                    abandon(key, mine);
+                    return counted(Outcome.IN_PROGRESS, null, key, null, false);
+                } else {
+                    Thread.sleep(PERSISTENT_POLL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(key, mine);
+            return counted(Outcome.IN_PROGRESS, null, key, null, false);
+        } catch (RuntimeException e) {
+            abandon(key, mine);
+            throw e;
+        }
+    }
+
+    private boolean insert(String keyHash, String fingerprint, LocalDateTime now) {
+        try {
+            transactionTemplate.execute(status ->
+                    recordRepository.insertClaim(keyHash, fingerprint, now, now.plus(ttl)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private boolean takeOver(String keyHash, String fingerprint, LocalDateTime now) {
+        Integer updated = transactionTemplate.execute(status ->
+                recordRepository.takeOver(keyHash, fingerprint, now, now.minus(lockTimeout)));
+        return updated != null && updated == 1;
+    }
+
+    // Keeps the response of a claimed key and hands it to the requests waiting on it
+    void complete(Claim claim, Response response) {
+        if (claim.persisted) {
+            try {
+                transactionTemplate.execute(status -> recordRepository.complete(sha256(claim.key),
+                        response.status(), response.contentType(), response.etag(), response.body()));
+            } catch (RuntimeException e) {
+                // Retries on this instance are still replayed; elsewhere they wait for lock-timeout
+                logger.error("Failed to store the response for an idempotency key", e);
+            }
+        }
+        store(claim.key, claim.entry, response);
+    }
+
+    // Gives up a claimed key; the next request with it runs again
+    void release(Claim claim) {
+        if (claim.persisted) {
+            try {
+                transactionTemplate.execute(status -> recordRepository.deleteClaim(sha256(claim.key)));
+            } catch (RuntimeException e) {
+                logger.error("Failed to release an idempotency key", e);
+            }
+        }
+        abandon(claim.key, claim.entry);
+    }
+
+    private void store(String key, Entry mine, Response response) {
+        // A new entry, so the cache weighs the body and the TTL starts now
+        entries.asMap().replace(key, mine, new Entry(mine.fingerprint, CompletableFuture.completedFuture(response)));
+        mine.result.complete(response);
+    }
+
+    private void abandon(String key, Entry mine) {
+        entries.asMap().remove(key, mine);
+        mine.result.complete(null);
+    }
+
+    private Claim counted(Outcome outcome, Response response, String key, Entry entry, boolean persisted) {
+        outcomes.get(outcome).increment();
+        return new Claim(outcome, response, key, entry, persisted);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        if (!persistent) {
+            return;
+        }
+        LocalDateTime now = User.now();
+        Integer purged = transactionTemplate.execute(status -> recordRepository.deleteAllExpired(now));
+        if (purged != null && purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256(byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (byte[] part : parts) {
+                digest.update(part);
+                // Separator, so ("ab", "c") and ("a", "bc") differ
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.api.logging;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Rate-limits routine info lines per endpoint: the first `limit` lines of each window are written,
+// the rest are only counted and reported as one summary line once the window has passed
+@Component
+public class RequestLogSampler {
+
+    private final boolean enabled;
+    private final int limit;
+    private final long windowNanos;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public RequestLogSampler(@Value("${app.logging.sample.enabled:true}") boolean enabled,
+                             @Value("${app.logging.sample.limit:20}") int limit,
+                             @Value("${app.logging.sample.window:10s}") Duration window) {
+        this.enabled = enabled;
+        this.limit = limit;
+        this.windowNanos = window.toNanos();
+    }
+
+    public void info(Logger logger, String endpoint, String message) {
+        if (admit(logger, endpoint)) {
+            logger.info(message);
+        }
+    }
+
+    public void info(Logger logger, String endpoint, String message, Object param) {
+        if (admit(logger, endpoint)) {
+            logger.info(message, param);
+        }
+    }
+
+    private boolean admit(Logger logger, String endpoint) {
+        if (!logger.isInfoEnabled()) {
+            return false;
+        }
+        if (!enabled) {
+            return true;
+        }
+        Window window = windows.computeIfAbsent(endpoint, key -> new Window(System.nanoTime()));
+        long now = System.nanoTime();
+        long start = window.start.get();
+        if (now - start >= windowNanos && window.start.compareAndSet(start, now)) {
+            window.count.set(0);
+            long suppressed = window.suppressed.sumThenReset();
+            if (suppressed > 0) {
+                logger.info("Suppressed {} routine '{}' log lines in the last {} s", suppressed, endpoint,
+                        Duration.ofNanos(now - start).toSeconds());
+            }
+        }
+        if (window.count.incrementAndGet() <= limit) {
+            return true;
+        }
+        window.suppressed.increment();
+        return false;
+    }
+
+    private static final class Window {
+        final AtomicLong start;
+        final AtomicInteger count = new AtomicInteger();
+        final LongAdder suppressed = new LongAdder();
+
+        Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.app.api.metrics;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Business counters; meters are registered once so the hot path is a single LongAdder increment
+@Component
+public class UserMetrics {
+
+    private final Counter loginSuccess;
+    private final Counter loginFailure;
+    private final Counter duplicateUsername;
+    private final Counter duplicateEmail;
+
+    public UserMetrics(MeterRegistry registry) {
+        this.loginSuccess = Counter.builder("users.login").tag("result", "success")
+                .description("Login attempts").register(registry);
+        this.loginFailure = Counter.builder("users.login").tag("result", "failure")
+                .description("Login attempts").register(registry);
+        this.duplicateUsername = Counter.builder("users.duplicate.conflicts").tag("field", "username")
+                .description("Writes rejected because the username or email is taken").register(registry);
+        this.duplicateEmail = Counter.builder("users.duplicate.conflicts").tag("field", "email")
+                .description("Writes rejected because the username or email is taken").register(registry);
+    }
+
+    public void loginSucceeded() {
+        loginSuccess.increment();
+    }
+
+    public void loginFailed() {
+        loginFailure.increment();
+    }
+
+    public void duplicateUsername() {
+        duplicateUsername.increment();
+    }
+
+    public void duplicateEmail() {
+        duplicateEmail.increment();
+    }
+}
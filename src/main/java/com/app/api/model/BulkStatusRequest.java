@@ -0,0 +1,47 @@
+package com.app.api.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Selects the users for a bulk status change, either by id or by filter
+public class BulkStatusRequest {
+
+    private List<Long> ids;
+    private UserStatus status;
+    private LocalDateTime updatedBefore;
+
+    // Getters and setters
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    // Filter: only users currently in this status
+    public UserStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(UserStatus status) {
+        this.status = status;
+    }
+
+    // Filter: only users last updated before this time
+    public LocalDateTime getUpdatedBefore() {
+        return updatedBefore;
+    }
+
+    public void setUpdatedBefore(LocalDateTime updatedBefore) {
+        this.updatedBefore = updatedBefore;
+    }
+
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    public boolean hasFilter() {
+        return status != null || updatedBefore != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.app.api.model;
+
+public class BulkUserResult {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID, FAILED
+    }
+
+    private final int index;
+    private final Status status;
+    private final Long id;
+    private final String username;
+    private final String message;
+
+    public BulkUserResult(int index, Status status, Long id, String username, String message) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.username = username;
+        this.message = message;
+    }
+
+    public static BulkUserResult created(int index, User user) {
+        return new BulkUserResult(index, Status.CREATED, user.getId(), user.getUsername(), null);
+    }
+
+    public static BulkUserResult rejected(int index, Status status, User user, String message) {
+        return new BulkUserResult(index, status, null, user == null ? null : user.getUsername(), message);
+    }
+
+    // Getters
+    // Position of the row in the request
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
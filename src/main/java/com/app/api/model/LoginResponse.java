@@ -0,0 +1,38 @@
+package com.app.api.model;
+
+public class LoginResponse {
+
+    private final String message;
+    private final String accessToken;
+    private final String refreshToken;
+    private final long expiresIn;
+
+    public LoginResponse(String message, String accessToken, String refreshToken, long expiresIn) {
+        this.message = message;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    // Getters
+    public String getMessage() {
+        return message;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public String getTokenType() {
+        return "Bearer";
+    }
+
+    // Lifetime of the access token in seconds
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
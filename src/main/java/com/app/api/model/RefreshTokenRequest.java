@@ -0,0 +1,14 @@
+package com.app.api.model;
+
+public class RefreshTokenRequest {
+    private String refreshToken;
+
+    // Getters and setters
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
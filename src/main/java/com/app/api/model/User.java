@@ -1,17 +1,26 @@
 package com.app.api.model;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+// UPDATE statements list only the changed columns (plus updated_at), e.g. for PATCH
 @Entity
 @Table(name = "users")
+@DynamicUpdate
 public class User {
 
+    // Ids come from a pooled table generator (50 per round trip) so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = "user_id_sequence", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "users", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Name is required")
@@ -31,6 +40,8 @@ public class User {
     
     @NotBlank(message = "Email is required")
     @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\W)(?!.*\\s).{6,}$", message = "Password must be at least 6 characters, including an uppercase letter, a lowercase letter, a special character, and a number.")
+    // Accepted in requests, never written to responses
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false, length = 225)
     private String password;
 
@@ -47,15 +58,27 @@ public class User {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // Timestamps are kept at microsecond precision, the same as the TIMESTAMP(6) columns,
+    // so the value in memory matches the stored one (updatedAt is the ETag version)
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        createdAt = now();
+        updatedAt = createdAt;
     }
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = now();
+    }
+
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    // Usernames and emails are unique regardless of case, like the columns' collation;
+    // compare them in Java through this key
+    public static String uniqueKey(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
     }
 
     // Constructor
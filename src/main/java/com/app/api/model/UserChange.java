@@ -0,0 +1,16 @@
+package com.app.api.model;
+
+import java.time.LocalDateTime;
+
+import com.app.api.repository.UserChangeRow;
+
+// One entry of the user change feed, identified by its position (sequence) in the feed
+public record UserChange(long sequence, Long userId, UserChangeType type, String name, String username,
+                         String email, UserStatus status, LocalDateTime changedAt) {
+
+    public static UserChange of(UserChangeRow row) {
+        return new UserChange(row.getSeq(), row.getUserId(), UserChangeType.valueOf(row.getChangeType()),
+                row.getName(), row.getUsername(), row.getEmail(),
+                row.getStatus() == null ? null : UserStatus.valueOf(row.getStatus()), row.getChangedAt());
+    }
+}
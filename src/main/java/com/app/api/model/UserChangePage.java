@@ -0,0 +1,6 @@
+package com.app.api.model;
+
+import java.util.List;
+
+// Changes after the requested position; pass `next` as "after" to continue
+public record UserChangePage(List<UserChange> changes, long next) {}
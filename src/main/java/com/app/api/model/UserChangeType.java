@@ -0,0 +1,7 @@
+package com.app.api.model;
+
+// CREATED, UPDATED (fields or status) and DELETED (soft) carry the user's public fields after the
+// change; PURGED (permanent delete) only carries the id
+public enum UserChangeType {
+    CREATED, UPDATED, DELETED, PURGED
+}
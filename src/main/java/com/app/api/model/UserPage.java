@@ -0,0 +1,24 @@
+package com.app.api.model;
+
+import java.util.List;
+
+public class UserPage {
+
+    private final List<UserView> items;
+    private final String next;
+
+    public UserPage(List<UserView> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    // Getters
+    public List<UserView> getItems() {
+        return items;
+    }
+
+    // Opaque cursor to pass as "after" for the following page, null on the last page
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,83 @@
+package com.app.api.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+
+// JSON Merge Patch body for PATCH /api/users/{id}: a field that is absent stays unchanged.
+// Only these fields can be patched; any other member is collected and rejected.
+public class UserPatch {
+
+    private String name;
+    private String username;
+    private String email;
+    private String password;
+    private boolean nameSet;
+    private boolean usernameSet;
+    private boolean emailSet;
+    private boolean passwordSet;
+    private final List<String> unsupportedFields = new ArrayList<>();
+
+    // Getters and setters; a setter call (even with null) marks the field as present
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.nameSet = true;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameSet = true;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailSet = true;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+        this.passwordSet = true;
+    }
+
+    @JsonAnySetter
+    public void setUnsupportedField(String field, Object value) {
+        unsupportedFields.add(field);
+    }
+
+    public List<String> getUnsupportedFields() {
+        return unsupportedFields;
+    }
+
+    public boolean hasName() {
+        return nameSet;
+    }
+
+    public boolean hasUsername() {
+        return usernameSet;
+    }
+
+    public boolean hasEmail() {
+        return emailSet;
+    }
+
+    public boolean hasPassword() {
+        return passwordSet;
+    }
+}
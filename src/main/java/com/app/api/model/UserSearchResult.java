@@ -0,0 +1,34 @@
+package com.app.api.model;
+
+// One type-ahead match: just the searchable fields of an active user
+public class UserSearchResult {
+
+    private final Long id;
+    private final String name;
+    private final String username;
+    private final String email;
+
+    public UserSearchResult(Long id, String name, String username, String email) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.email = email;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
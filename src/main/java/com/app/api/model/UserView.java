@@ -0,0 +1,15 @@
+package com.app.api.model;
+
+import java.time.LocalDateTime;
+
+// Read model for user responses: the public columns only, never the password hash.
+// Loaded straight from a constructor-expression query, so reads skip entity hydration,
+// the persistence context and dirty checking.
+public record UserView(Long id, String name, String username, String email, UserStatus status,
+                       LocalDateTime createdAt, LocalDateTime updatedAt, LocalDateTime deletedAt) {
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getName(), user.getUsername(), user.getEmail(), user.getStatus(),
+                user.getCreatedAt(), user.getUpdatedAt(), user.getDeletedAt());
+    }
+}
@@ -0,0 +1,9 @@
+package com.app.api.repository;
+
+import java.time.LocalDate;
+
+// Projection of a count grouped by calendar day
+public interface DayCount {
+    LocalDate getDay();
+    long getCount();
+}
@@ -0,0 +1,51 @@
+package com.app.api.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.app.api.model.IdempotencyRecord;
+
+// Persistent Idempotency-Key store (idempotency_keys), keyed by the key hash. A key is claimed by
+// inserting its row, so two instances cannot both run the request; all but the expiry purge are
+// primary key lookups.
+public interface IdempotencyRecordRepository extends Repository<IdempotencyRecord, String> {
+
+    Optional<IdempotencyRecord> findById(String keyHash);
+
+    @Modifying
+    @Query(value = "insert into idempotency_keys (key_hash, request_hash, created_at, expires_at) "
+            + "values (:keyHash, :requestHash, :createdAt, :expiresAt)", nativeQuery = true)
+    int insertClaim(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+                    @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseStatus = :status, r.contentType = :contentType, r.etag = :etag, "
+            + "r.body = :body where r.keyHash = :keyHash and r.responseStatus is null")
+    int complete(@Param("keyHash") String keyHash, @Param("status") int status,
+                 @Param("contentType") String contentType, @Param("etag") String etag, @Param("body") byte[] body);
+
+    // Claims a key whose request has been running for too long, i.e. whose instance died
+    @Modifying
+    @Query("update IdempotencyRecord r set r.createdAt = :now where r.keyHash = :keyHash "
+            + "and r.requestHash = :requestHash and r.responseStatus is null and r.createdAt < :staleBefore")
+    int takeOver(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+                 @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Gives up a claim; the request failed without a response worth keeping
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.keyHash = :keyHash and r.responseStatus is null")
+    int deleteClaim(@Param("keyHash") String keyHash);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.keyHash = :keyHash and r.expiresAt <= :now")
+    int deleteExpired(@Param("keyHash") String keyHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
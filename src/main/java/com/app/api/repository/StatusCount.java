@@ -0,0 +1,9 @@
+package com.app.api.repository;
+
+import com.app.api.model.UserStatus;
+
+// Projection of a count grouped by status
+public interface StatusCount {
+    UserStatus getStatus();
+    long getCount();
+}
@@ -0,0 +1,38 @@
+package com.app.api.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.app.api.model.User;
+import com.app.api.model.UserStatus;
+
+// Archival of long-deleted users into users_archive, one batch per transaction. The batch is
+// locked first so the copy and the delete below see exactly the same rows.
+public interface UserArchiveRepository extends Repository<User, Long> {
+
+    @Query(value = "select id from users where status = 'DELETED' and deleted_at < :cutoff "
+            + "order by deleted_at, id limit :limit for update", nativeQuery = true)
+    List<Long> lockArchivableIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "insert into users_archive (id, name, username, email, password, created_at, updated_at, deleted_at, archived_at) "
+            + "select id, name, username, email, password, created_at, updated_at, deleted_at, :archivedAt from users "
+            + "where id in :ids and status = 'DELETED'", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "delete from users where id in :ids and status = 'DELETED'", nativeQuery = true)
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+
+    // Oldest soft delete past the retention cutoff, i.e. how far archival is behind
+    @Query("select min(u.deletedAt) from User u where u.status = :status and u.deletedAt < :cutoff")
+    Optional<LocalDateTime> findOldestDeletedAtBefore(@Param("status") UserStatus status,
+                                                      @Param("cutoff") LocalDateTime cutoff);
+}
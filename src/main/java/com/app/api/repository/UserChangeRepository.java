@@ -0,0 +1,100 @@
+package com.app.api.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.app.api.model.User;
+
+// Change feed outbox (user_changes). Entries are written in the transaction of the change they
+// describe, after the change itself, and carry the user's public fields as they now are.
+// Also holds the publishing sequencer, the compaction mark and the consumer positions.
+public interface UserChangeRepository extends Repository<User, Long> {
+
+    @Modifying
+    @Query(value = "insert into user_changes (user_id, change_type, name, username, email, status, changed_at) "
+            + "select id, :type, name, username, email, status, :changedAt from users where id in :ids order by id",
+            nativeQuery = true)
+    int insertChanges(@Param("ids") Collection<Long> ids, @Param("type") String type,
+                      @Param("changedAt") LocalDateTime changedAt);
+
+    // Bulk status changes record the rows about to change, before the UPDATE (same condition)
+    @Modifying
+    @Query(value = "insert into user_changes (user_id, change_type, name, username, email, status, changed_at) "
+            + "select id, :type, name, username, email, :status, :changedAt from users "
+            + "where id in :ids and status <> :status order by id", nativeQuery = true)
+    int insertStatusChanges(@Param("ids") Collection<Long> ids, @Param("type") String type,
+                            @Param("status") String status, @Param("changedAt") LocalDateTime changedAt);
+
+    @Modifying
+    @Query(value = "insert into user_changes (user_id, change_type, changed_at) values (:userId, :type, :changedAt)",
+            nativeQuery = true)
+    int insertRemovedChange(@Param("userId") Long userId, @Param("type") String type,
+                            @Param("changedAt") LocalDateTime changedAt);
+
+    // Users just moved to users_archive by the archiver, in its transaction
+    @Modifying
+    @Query(value = "insert into user_changes (user_id, change_type, changed_at) "
+            + "select id, :type, :changedAt from users_archive where id in :ids order by id", nativeQuery = true)
+    int insertArchivedChanges(@Param("ids") Collection<Long> ids, @Param("type") String type,
+                              @Param("changedAt") LocalDateTime changedAt);
+
+    // Publishing: committed entries without a position yet, oldest insert first
+    @Query(value = "select seq from user_changes where position is null order by seq limit :limit", nativeQuery = true)
+    List<Long> findUnpublishedChanges(@Param("limit") int limit);
+
+    // Taken first in every publishing transaction, so instances publish one at a time
+    @Query(value = "select last_position from user_change_sequencer where id = 1 for update", nativeQuery = true)
+    long lockLastChangePosition();
+
+    @Modifying
+    @Query(value = "update user_changes set position = seq + :offset where seq in :seqs", nativeQuery = true)
+    int publishChanges(@Param("seqs") Collection<Long> seqs, @Param("offset") long offset);
+
+    @Modifying
+    @Query(value = "update user_change_sequencer set last_position = :position where id = 1", nativeQuery = true)
+    int updateLastChangePosition(@Param("position") long position);
+
+    // The feed position is exposed as the entry's sequence
+    @Query(value = "select position as seq, user_id as userId, change_type as changeType, name, username, email, status, "
+            + "changed_at as changedAt from user_changes where position > :after order by position limit :limit",
+            nativeQuery = true)
+    List<UserChangeRow> findChangesAfter(@Param("after") long after, @Param("limit") int limit);
+
+    @Query(value = "select last_position from user_change_sequencer where id = 1", nativeQuery = true)
+    long findLatestChangeSequence();
+
+    @Modifying
+    @Query(value = "delete from user_changes where position > :after and position <= :upTo", nativeQuery = true)
+    int deleteChanges(@Param("after") long after, @Param("upTo") long upTo);
+
+    @Query(value = "select compacted_up_to from user_change_compaction where id = 1", nativeQuery = true)
+    long findChangesCompactedUpTo();
+
+    @Modifying
+    @Query(value = "update user_change_compaction set compacted_up_to = :upTo where id = 1 and compacted_up_to < :upTo",
+            nativeQuery = true)
+    int advanceChangesCompactedUpTo(@Param("upTo") long upTo);
+
+    @Modifying
+    @Query(value = "update user_change_consumers set position = :position, seen_at = :seenAt "
+            + "where name = :name and position <= :position", nativeQuery = true)
+    int advanceChangeConsumer(@Param("name") String name, @Param("position") long position,
+                              @Param("seenAt") LocalDateTime seenAt);
+
+    @Modifying
+    @Query(value = "insert into user_change_consumers (name, position, seen_at) values (:name, :position, :seenAt)",
+            nativeQuery = true)
+    int insertChangeConsumer(@Param("name") String name, @Param("position") long position,
+                             @Param("seenAt") LocalDateTime seenAt);
+
+    // Slowest consumer seen since the given time; the table holds one row per consumer
+    @Query(value = "select min(position) from user_change_consumers where seen_at >= :seenSince", nativeQuery = true)
+    Optional<Long> findSlowestChangeConsumer(@Param("seenSince") LocalDateTime seenSince);
+}
@@ -0,0 +1,15 @@
+package com.app.api.repository;
+
+import java.time.LocalDateTime;
+
+// Projection of a user_changes row, read by the change feed; seq is the feed position
+public interface UserChangeRow {
+    Long getSeq();
+    Long getUserId();
+    String getChangeType();
+    String getName();
+    String getUsername();
+    String getEmail();
+    String getStatus();
+    LocalDateTime getChangedAt();
+}
@@ -0,0 +1,8 @@
+package com.app.api.repository;
+
+// Projection with just the unique keys of a user, used for duplicate checks
+public interface UserKeys {
+    Long getId();
+    String getUsername();
+    String getEmail();
+}
@@ -1,11 +1,24 @@
 package com.app.api.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.app.api.model.User;
 import com.app.api.model.UserStatus;
+import com.app.api.model.UserView;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     
@@ -14,6 +27,50 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findAllByStatus(UserStatus status);
     Optional<User> findByIdAndStatus(Long id, UserStatus status);
 
+    // Read models for responses: public columns only, no entity hydration
+    @Query("select new com.app.api.model.UserView(u.id, u.name, u.username, u.email, u.status, u.createdAt, "
+            + "u.updatedAt, u.deletedAt) from User u where u.id = :id and u.status = :status")
+    Optional<UserView> findViewByIdAndStatus(@Param("id") Long id, @Param("status") UserStatus status);
+
+    // Keyset pagination: seek past the last seen id instead of using OFFSET (0 for the first page)
+    @Query("select new com.app.api.model.UserView(u.id, u.name, u.username, u.email, u.status, u.createdAt, "
+            + "u.updatedAt, u.deletedAt) from User u where u.status = :status and u.id > :afterId order by u.id")
+    List<UserView> findViewsByStatusAfterId(@Param("status") UserStatus status, @Param("afterId") Long afterId,
+                                            Limit limit);
+
+    // Version lookups for conditional GETs, without hydrating entities
+    @Query("select u.updatedAt from User u where u.id = :id and u.status = :status")
+    Optional<LocalDateTime> findUpdatedAtByIdAndStatus(@Param("id") Long id, @Param("status") UserStatus status);
+
+    @Query("select u.id as id, u.updatedAt as updatedAt from User u "
+            + "where u.status = :status and u.id > :afterId order by u.id")
+    List<UserVersion> findVersionsByStatusAfterId(@Param("status") UserStatus status, @Param("afterId") Long afterId,
+                                                  Limit limit);
+
+    // Stream users for export as read models; rows are fetched from a server-side cursor
+    // in chunks (needs useCursorFetch=true on the MySQL URL). One query per filter combination,
+    // since "(:status is null or ...)" predicates keep MySQL from using any index.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.app.api.model.UserView(u.id, u.name, u.username, u.email, u.status, u.createdAt, "
+            + "u.updatedAt, u.deletedAt) from User u order by u.id")
+    Stream<UserView> streamAllForExport();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.app.api.model.UserView(u.id, u.name, u.username, u.email, u.status, u.createdAt, "
+            + "u.updatedAt, u.deletedAt) from User u where u.status = :status order by u.id")
+    Stream<UserView> streamForExportByStatus(@Param("status") UserStatus status);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.app.api.model.UserView(u.id, u.name, u.username, u.email, u.status, u.createdAt, "
+            + "u.updatedAt, u.deletedAt) from User u where u.updatedAt >= :since order by u.id")
+    Stream<UserView> streamForExportUpdatedSince(@Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.app.api.model.UserView(u.id, u.name, u.username, u.email, u.status, u.createdAt, "
+            + "u.updatedAt, u.deletedAt) from User u where u.status = :status and u.updatedAt >= :since order by u.id")
+    Stream<UserView> streamForExportByStatusUpdatedSince(@Param("status") UserStatus status,
+                                                         @Param("since") LocalDateTime since);
+
     // Find users that are not soft deleted (deleted_at is null)
     List<User> findByDeletedAtIsNull();
 
@@ -26,4 +83,69 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // New methods to check for duplicates without filtering by status
     User findByUsername(String username);
     User findByEmail(String email);
-}
\ No newline at end of file
+
+    // Indexed existence checks (unique keys), any status
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    // Stream only the unique keys of every user, e.g. to build in-memory indexes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.id as id, u.username as username, u.email as email from User u")
+    Stream<UserKeys> streamAllKeys();
+
+    // Searchable fields of every user in a status, to build the search index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.id as id, u.name as name, u.username as username, u.email as email from User u "
+            + "where u.status = :status order by u.id")
+    Stream<UserSearchRow> streamSearchRows(@Param("status") UserStatus status);
+
+    // Search fallback while the index builds: ngram FULLTEXT index ft_users_search (MySQL only)
+    @Query(value = "select id, name, username, email from users where status = 'ACTIVE' "
+            + "and match(name, username, email) against (:phrase in boolean mode) limit :limit", nativeQuery = true)
+    List<UserSearchRow> searchFullText(@Param("phrase") String phrase, @Param("limit") int limit);
+
+    // Search fallback for other databases and one-character queries; the infix LIKE scans
+    @Query("select u.id as id, u.name as name, u.username as username, u.email as email from User u "
+            + "where u.status = :status and (lower(u.name) like :pattern escape '\\' "
+            + "or lower(u.username) like :pattern escape '\\' or lower(u.email) like :pattern escape '\\') order by u.id")
+    List<UserSearchRow> searchByPattern(@Param("status") UserStatus status, @Param("pattern") String pattern, Limit limit);
+
+    // Duplicate check for one user in one query, any status; at most two rows come back.
+    // A union rather than OR so each branch is a unique-key lookup instead of a table scan.
+    @Query("select u.id as id, u.username as username, u.email as email from User u where u.username = :username "
+            + "union select u.id as id, u.username as username, u.email as email from User u where u.email = :email")
+    List<UserKeys> findKeysByUsernameOrEmail(@Param("username") String username, @Param("email") String email);
+
+    // Duplicate check for a whole batch in one query, any status
+    @Query("select u.id as id, u.username as username, u.email as email from User u where u.username in :usernames "
+            + "union select u.id as id, u.username as username, u.email as email from User u where u.email in :emails")
+    List<UserKeys> findKeysByUsernameInOrEmailIn(@Param("usernames") Collection<String> usernames,
+                                                 @Param("emails") Collection<String> emails);
+
+    // Set-based status change for bulk operations; rows already in the target status are left alone
+    @Modifying
+    @Query("update User u set u.status = :status, u.deletedAt = :deletedAt, u.updatedAt = :now "
+            + "where u.id in :ids and u.status <> :status")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") UserStatus status,
+                           @Param("deletedAt") LocalDateTime deletedAt, @Param("now") LocalDateTime now);
+
+    // If-Match write guard: moves the version on only while it is still the one the caller matched,
+    // and locks the row until commit so no other writer can slip in between
+    @Modifying
+    @Query("update User u set u.updatedAt = :now where u.id = :id and u.updatedAt = :expected")
+    int advanceVersion(@Param("id") Long id, @Param("expected") LocalDateTime expected, @Param("now") LocalDateTime now);
+
+    // Resolve a bulk filter into ids one keyset chunk at a time, one query per filter combination
+    @Query("select u.id from User u where u.status = :status and u.id > :afterId order by u.id")
+    List<Long> findIdsByStatusAfterId(@Param("status") UserStatus status, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("select u.id from User u where u.updatedAt < :updatedBefore and u.id > :afterId order by u.id")
+    List<Long> findIdsUpdatedBeforeAfterId(@Param("updatedBefore") LocalDateTime updatedBefore,
+                                           @Param("afterId") Long afterId, Limit limit);
+
+    @Query("select u.id from User u where u.status = :status and u.updatedAt < :updatedBefore "
+            + "and u.id > :afterId order by u.id")
+    List<Long> findIdsByStatusUpdatedBeforeAfterId(@Param("status") UserStatus status,
+                                                   @Param("updatedBefore") LocalDateTime updatedBefore,
+                                                   @Param("afterId") Long afterId, Limit limit);
+}
@@ -0,0 +1,9 @@
+package com.app.api.repository;
+
+// Projection with the searchable fields of a user, used by the search index and its fallback
+public interface UserSearchRow {
+    Long getId();
+    String getName();
+    String getUsername();
+    String getEmail();
+}
@@ -0,0 +1,28 @@
+package com.app.api.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import com.app.api.model.User;
+
+// Counts behind the in-memory user statistics: the periodic reconciliation and the status
+// moves of bulk operations
+public interface UserStatisticsRepository extends Repository<User, Long> {
+
+    @Query("select u.status as status, count(u) as count from User u group by u.status")
+    List<StatusCount> countGroupedByStatus();
+
+    @Query("select cast(u.createdAt as LocalDate) as day, count(u) as count from User u "
+            + "where u.createdAt >= :since group by cast(u.createdAt as LocalDate)")
+    List<DayCount> countRegistrationsByDaySince(@Param("since") LocalDateTime since);
+
+    // Current statuses of the users a bulk status change is about to move, one per row. The rows
+    // are locked, so no other writer can change them between this read and the UPDATE.
+    @Query(value = "select status from users where id in :ids for update", nativeQuery = true)
+    List<String> lockStatusesByIdIn(@Param("ids") Collection<Long> ids);
+}
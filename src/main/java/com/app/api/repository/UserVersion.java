@@ -0,0 +1,9 @@
+package com.app.api.repository;
+
+import java.time.LocalDateTime;
+
+// Projection with just what is needed to compute an ETag
+public interface UserVersion {
+    Long getId();
+    LocalDateTime getUpdatedAt();
+}
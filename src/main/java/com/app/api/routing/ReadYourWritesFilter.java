@@ -0,0 +1,75 @@
+package com.app.api.routing;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Sends every read of a caller that wrote within the last `window` to the primary, so a client
+// never reads a replica that has not caught up with its own write. Callers are identified by
+// the authenticated username, or by the client IP for anonymous requests. Writes themselves
+// always run on the primary. Login and token refresh are POSTs that only read, so they count as
+// reads and do not pin their caller. Must run after Spring Security to see the principal.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    private static final Set<String> READ_ONLY_POSTS = Set.of("/api/login", "/api/token/refresh");
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    // Bounded, and entries expire with the window, so memory stays flat however many callers write
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(Duration window, long maxCallers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxCallers)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String caller = caller(request);
+        boolean write = isWrite(request);
+        RoutingContext.setPrimaryRequired(write || recentWriters.getIfPresent(caller) != null);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoutingContext.clear();
+            if (write && response.getStatus() < 400) {
+                recentWriters.put(caller, Boolean.TRUE);
+            }
+        }
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (SAFE_METHODS.contains(method)) {
+            return false;
+        }
+        return !("POST".equals(method) && READ_ONLY_POSTS.contains(urlPathHelper.getPathWithinApplication(request)));
+    }
+
+    private static String caller(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
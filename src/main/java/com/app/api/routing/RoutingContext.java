@@ -0,0 +1,28 @@
+package com.app.api.routing;
+
+// Per-request routing hint set by ReadYourWritesFilter. TRUE: the request writes, or its caller
+// wrote recently, so everything uses the primary. FALSE: a plain read request, so reads outside
+// a transaction may use a replica too. Unset (jobs, async export): only read-only transactions do.
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    public static boolean isReadRequest() {
+        return Boolean.FALSE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    static void setPrimaryRequired(boolean primaryRequired) {
+        PRIMARY_REQUIRED.set(primaryRequired);
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+}
@@ -0,0 +1,326 @@
+package com.app.api.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+// Immutable trigram index over the name, username and email of a set of users.
+//
+// Every user is one document. Its three fields are stored UTF-8 encoded, back to back, in one
+// byte array, and each distinct lower-cased trigram of a field points to a posting list of
+// document numbers, delta and varint encoded (mostly one or two bytes per entry). The first one and two
+// bytes of every word are indexed as extra prefix grams, so short queries work the same way.
+// A query reads the shortest posting list among its grams and verifies each candidate against
+// the stored text, stopping early once enough matches are found.
+//
+// Memory: roughly 60 bytes of text and 60 postings per user, about 125 MB per million users.
+public final class SearchSnapshot {
+
+    private static final int FIELDS = 3;
+
+    // Key of the first one or two bytes of a word; trigram keys only use the low 24 bits
+    private static final int PREFIX_1 = 1 << 24;
+    private static final int PREFIX_2 = 2 << 24;
+
+    private final long[] ids;
+    private final int[] fieldStarts;
+    private final byte[] text;
+    private final int[] gramKeys;
+    private final byte[][] postings;
+    private final int[] postingSizes;
+
+    private SearchSnapshot(long[] ids, int[] fieldStarts, byte[] text, int[] gramKeys, byte[][] postings,
+                           int[] postingSizes) {
+        this.ids = ids;
+        this.fieldStarts = fieldStarts;
+        this.text = text;
+        this.gramKeys = gramKeys;
+        this.postings = postings;
+        this.postingSizes = postingSizes;
+    }
+
+    public record Hit(long id, String name, String username, String email, boolean prefix) {}
+
+    // Up to `limit` word-prefix matches and `limit` infix matches, in document order, examining at most
+    // maxCandidates documents. The query must already be lower case; skipped ids are ignored.
+    public List<Hit> search(String query, int limit, int maxCandidates, LongPredicate skip) {
+        byte[] needle = query.getBytes(StandardCharsets.UTF_8);
+        int posting = shortestPosting(needle);
+        if (posting < 0) {
+            return List.of();
+        }
+        byte[] list = postings[posting];
+        List<Hit> prefixHits = new ArrayList<>();
+        List<Hit> infixHits = new ArrayList<>();
+        int doc = -1;
+        int examined = 0;
+        for (int position = 0; position < list.length && prefixHits.size() < limit && examined < maxCandidates; ) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = list[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+            if (skip.test(ids[doc])) {
+                continue;
+            }
+            examined++;
+            int match = match(doc, needle);
+            if (match == 0) {
+                prefixHits.add(hit(doc, true));
+            } else if (match > 0 && infixHits.size() < limit) {
+                infixHits.add(hit(doc, false));
+            }
+        }
+        prefixHits.addAll(infixHits);
+        return prefixHits;
+    }
+
+    // Index of the posting list to scan, or -1 when some gram of the query occurs nowhere
+    private int shortestPosting(byte[] needle) {
+        if (needle.length < 3) {
+            return Arrays.binarySearch(gramKeys, prefixKey(needle, 0, needle.length));
+        }
+        int best = -1;
+        for (int i = 0; i + 3 <= needle.length; i++) {
+            int posting = Arrays.binarySearch(gramKeys, trigramKey(needle, i));
+            if (posting < 0) {
+                return -1;
+            }
+            if (best < 0 || postingSizes[posting] < postingSizes[best]) {
+                best = posting;
+            }
+        }
+        return best;
+    }
+
+    // 0 if the needle starts a word of some field (the field itself, or after a space, '_', '.' or '@'),
+    // 1 if a field only contains it elsewhere, -1 otherwise
+    private int match(int doc, byte[] needle) {
+        int result = -1;
+        for (int field = doc * FIELDS; field < (doc + 1) * FIELDS; field++) {
+            int start = fieldStarts[field];
+            int end = fieldStarts[field + 1];
+            outer:
+            for (int i = start; i + needle.length <= end; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (fold(text[i + j]) != needle[j]) {
+                        continue outer;
+                    }
+                }
+                if (i == start || isSeparator(text[i - 1])) {
+                    return 0;
+                }
+                result = 1;
+            }
+        }
+        return result;
+    }
+
+    static boolean isSeparator(int c) {
+        return c == ' ' || c == '_' || c == '.' || c == '@';
+    }
+
+    private Hit hit(int doc, boolean prefix) {
+        int field = doc * FIELDS;
+        return new Hit(ids[doc], field(field), field(field + 1), field(field + 2), prefix);
+    }
+
+    private String field(int field) {
+        return new String(text, fieldStarts[field], fieldStarts[field + 1] - fieldStarts[field], StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int gramCount() {
+        return gramKeys.length;
+    }
+
+    public long sizeInBytes() {
+        long bytes = ids.length * 8L + fieldStarts.length * 4L + text.length + gramKeys.length * 8L;
+        for (byte[] posting : postings) {
+            bytes += posting.length + 16;
+        }
+        return bytes;
+    }
+
+    // Case folding is ASCII only, which covers every value the API accepts
+    private static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static int trigramKey(byte[] bytes, int at) {
+        return (fold(bytes[at]) & 0xFF) << 16 | (fold(bytes[at + 1]) & 0xFF) << 8 | (fold(bytes[at + 2]) & 0xFF);
+    }
+
+    private static int prefixKey(byte[] bytes, int at, int length) {
+        return length == 1
+                ? PREFIX_1 | (fold(bytes[at]) & 0xFF)
+                : PREFIX_2 | (fold(bytes[at]) & 0xFF) << 8 | (fold(bytes[at + 1]) & 0xFF);
+    }
+
+    // Collects users in id order; not thread-safe
+    public static final class Builder {
+
+        private long[] ids = new long[1024];
+        private int[] fieldStarts = new int[FIELDS * 1024 + 1];
+        private byte[] text = new byte[64 * 1024];
+        private int size;
+        private int textLength;
+        private final GramTable grams = new GramTable();
+
+        public Builder add(long id, String name, String username, String email) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fieldStarts = Arrays.copyOf(fieldStarts, size * 2 * FIELDS + 1);
+            }
+            ids[size] = id;
+            int field = size * FIELDS;
+            for (String value : new String[] {name, username, email}) {
+                byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+                if (textLength + bytes.length > text.length) {
+                    text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + bytes.length));
+                }
+                System.arraycopy(bytes, 0, text, textLength, bytes.length);
+                fieldStarts[field] = textLength;
+                textLength += bytes.length;
+                fieldStarts[++field] = textLength;
+                index(bytes);
+            }
+            size++;
+            return this;
+        }
+
+        private void index(byte[] bytes) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (i == 0 || isSeparator(bytes[i - 1])) {
+                    grams.add(prefixKey(bytes, i, 1), size);
+                    if (i + 2 <= bytes.length) {
+                        grams.add(prefixKey(bytes, i, 2), size);
+                    }
+                }
+                if (i + 3 <= bytes.length) {
+                    grams.add(trigramKey(bytes, i), size);
+                }
+            }
+        }
+
+        public SearchSnapshot build() {
+            int[] slots = grams.slotsByKey();
+            int[] gramKeys = new int[slots.length];
+            byte[][] postings = new byte[slots.length][];
+            int[] postingSizes = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                gramKeys[i] = grams.keys[slots[i]];
+                postings[i] = Arrays.copyOf(grams.postings[slots[i]], grams.lengths[slots[i]]);
+                postingSizes[i] = grams.counts[slots[i]];
+            }
+            return new SearchSnapshot(Arrays.copyOf(ids, size), Arrays.copyOf(fieldStarts, size * FIELDS + 1),
+                    Arrays.copyOf(text, textLength), gramKeys, postings, postingSizes);
+        }
+    }
+
+    // Open-addressing map from gram key to a growing posting list
+    private static final class GramTable {
+
+        private int[] keys = filled(1 << 16);
+        private byte[][] postings = new byte[1 << 16][];
+        private int[] lengths = new int[1 << 16];
+        private int[] counts = new int[1 << 16];
+        private int[] lastDocs = new int[1 << 16];
+        private int used;
+
+        void add(int key, int doc) {
+            int slot = slot(key);
+            if (keys[slot] == -1) {
+                keys[slot] = key;
+                postings[slot] = new byte[8];
+                lastDocs[slot] = -1;
+                if (++used * 2 > keys.length) {
+                    grow();
+                    slot = slot(key);
+                }
+            }
+            // A gram repeated within the same user is stored once
+            if (lastDocs[slot] == doc) {
+                return;
+            }
+            int delta = doc - lastDocs[slot];
+            lastDocs[slot] = doc;
+            counts[slot]++;
+            byte[] posting = postings[slot];
+            if (lengths[slot] + 5 > posting.length) {
+                posting = postings[slot] = Arrays.copyOf(posting, posting.length * 2);
+            }
+            int length = lengths[slot];
+            while ((delta & ~0x7F) != 0) {
+                posting[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            posting[length++] = (byte) delta;
+            lengths[slot] = length;
+        }
+
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 8 & mask;
+            while (keys[slot] != -1 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            byte[][] oldPostings = postings;
+            int[] oldLengths = lengths;
+            int[] oldCounts = counts;
+            int[] oldLastDocs = lastDocs;
+            keys = filled(oldKeys.length * 2);
+            postings = new byte[keys.length][];
+            lengths = new int[keys.length];
+            counts = new int[keys.length];
+            lastDocs = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    postings[slot] = oldPostings[i];
+                    lengths[slot] = oldLengths[i];
+                    counts[slot] = oldCounts[i];
+                    lastDocs[slot] = oldLastDocs[i];
+                }
+            }
+        }
+
+        // Used slots ordered by key, so lookups can binary search the keys
+        int[] slotsByKey() {
+            long[] sorted = new long[used];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != -1) {
+                    sorted[n++] = (long) keys[i] << 32 | i;
+                }
+            }
+            Arrays.sort(sorted);
+            int[] slots = new int[n];
+            for (int i = 0; i < n; i++) {
+                slots[i] = (int) sorted[i];
+            }
+            return slots;
+        }
+
+        private static int[] filled(int length) {
+            int[] array = new int[length];
+            Arrays.fill(array, -1);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.app.api.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.api.model.User;
+import com.app.api.model.UserSearchResult;
+import com.app.api.model.UserStatus;
+import com.app.api.repository.UserRepository;
+import com.app.api.repository.UserSearchRow;
+
+// Type-ahead search over the name, username and email of ACTIVE users.
+// Queries are answered from an immutable trigram snapshot (SearchSnapshot) plus a small map of
+// users written since the snapshot was built. Writes land in that map after they commit, and
+// once it grows past app.users.search.max-pending the snapshot is rebuilt in the background.
+// Until the first build finishes, queries fall back to the database (FULLTEXT on MySQL).
+@Component
+public class UserSearchIndex {
+
+    private static final Logger logger = LogManager.getLogger(UserSearchIndex.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate buildTransaction;
+    private final TaskExecutor taskExecutor;
+    private final boolean fullTextAvailable;
+    private final int maxPending;
+    private final int maxCandidates;
+
+    private volatile SearchSnapshot snapshot;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Users changed since the snapshot was built; the entry wins over the snapshot document.
+    // A null name marks a user that left the ACTIVE status or was removed.
+    private record Pending(long sequence, String name, String username, String email) {}
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder indexQueries = new LongAdder();
+    private final LongAdder databaseQueries = new LongAdder();
+
+    public UserSearchIndex(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                           @Value("${spring.datasource.url}") String datasourceUrl,
+                           @Value("${app.users.search.max-pending:10000}") int maxPending,
+                           @Value("${app.users.search.max-candidates:20000}") int maxCandidates) {
+        this.userRepository = userRepository;
+        // Not read-only: with read/write splitting that would build from a replica, which can
+        // lag behind writes the index must already contain
+        this.buildTransaction = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.fullTextAvailable = datasourceUrl.startsWith("jdbc:mysql:");
+        this.maxPending = maxPending;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync();
+    }
+
+    // Matches in name, username or email; users with a word starting with the query come first
+    public List<UserSearchResult> search(String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        SearchSnapshot current = snapshot;
+        if (current == null) {
+            databaseQueries.increment();
+            return searchDatabase(needle, limit);
+        }
+        indexQueries.increment();
+        List<SearchSnapshot.Hit> hits = new ArrayList<>(current.search(needle, limit, maxCandidates,
+                pending.isEmpty() ? id -> false : id -> pending.containsKey(id)));
+        pending.forEach((id, user) -> {
+            if (user.name() != null) {
+                int match = match(needle, user.name().toLowerCase(Locale.ROOT), user.username().toLowerCase(Locale.ROOT),
+                        user.email().toLowerCase(Locale.ROOT));
+                if (match >= 0) {
+                    hits.add(new SearchSnapshot.Hit(id, user.name(), user.username(), user.email(), match == 0));
+                }
+            }
+        });
+        return hits.stream()
+                .sorted(Comparator.comparing((SearchSnapshot.Hit hit) -> !hit.prefix()).thenComparingLong(SearchSnapshot.Hit::id))
+                .limit(limit)
+                .map(hit -> new UserSearchResult(hit.id(), hit.name(), hit.username(), hit.email()))
+                .toList();
+    }
+
+    private static int match(String needle, String... fields) {
+        int result = -1;
+        for (String field : fields) {
+            for (int at = field.indexOf(needle); at >= 0; at = field.indexOf(needle, at + 1)) {
+                if (at == 0 || SearchSnapshot.isSeparator(field.charAt(at - 1))) {
+                    return 0;
+                }
+                result = 1;
+            }
+        }
+        return result;
+    }
+
+    // FULLTEXT (ngram parser) needs at least two characters; anything else uses LIKE and scans
+    private List<UserSearchResult> searchDatabase(String needle, int limit) {
+        // Boolean mode operators are stripped and the rest searched as one phrase
+        String terms = needle.replaceAll("[\"+\\-<>()~*@]", " ").trim();
+        List<UserSearchRow> rows;
+        if (fullTextAvailable && terms.length() >= 2) {
+            rows = userRepository.searchFullText("\"" + terms + "\"", limit);
+        } else {
+            String pattern = "%" + needle.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            rows = userRepository.searchByPattern(UserStatus.ACTIVE, pattern, Limit.of(limit));
+        }
+        return rows.stream()
+                .map(row -> new UserSearchResult(row.getId(), row.getName(), row.getUsername(), row.getEmail()))
+                .toList();
+    }
+
+    // Call after a user is created or updated; non-active users are dropped from results
+    public void indexed(User user) {
+        Long id = user.getId();
+        if (user.getStatus() == UserStatus.ACTIVE) {
+            String name = user.getName();
+            String username = user.getUsername();
+            String email = user.getEmail();
+            afterCommit(() -> put(id, name, username, email));
+        } else {
+            removed(List.of(id));
+        }
+    }
+
+    // Call after users are soft deleted, deactivated or hard deleted
+    public void removed(Collection<Long> ids) {
+        List<Long> copy = List.copyOf(ids);
+        afterCommit(() -> copy.forEach(id -> put(id, null, null, null)));
+    }
+
+    // Call after users are reactivated in bulk; their fields are not at hand, so rebuild
+    public void reactivated() {
+        afterCommit(this::rebuildAsync);
+    }
+
+    private void put(Long id, String name, String username, String email) {
+        pending.put(id, new Pending(sequence.incrementAndGet(), name, username, email));
+        if (pending.size() > maxPending) {
+            rebuildAsync();
+        }
+    }
+
+    // Writes only become visible once committed; outside a transaction they already are
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public void rebuildAsync() {
+        if (rebuilding.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to build the user search index", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        // Everything recorded so far was committed before the read below starts, so the new
+        // snapshot includes it; later entries stay pending
+        long builtUpTo = sequence.get();
+        SearchSnapshot.Builder builder = new SearchSnapshot.Builder();
+        buildTransaction.executeWithoutResult(status -> {
+            try (Stream<UserSearchRow> rows = userRepository.streamSearchRows(UserStatus.ACTIVE)) {
+                rows.forEach(row -> builder.add(row.getId(), row.getName(), row.getUsername(), row.getEmail()));
+            }
+        });
+        SearchSnapshot next = builder.build();
+        snapshot = next;
+        pending.values().removeIf(user -> user.sequence() <= builtUpTo);
+        logger.info("Built search index for {} users ({} KB, {} grams) in {} ms", next.size(),
+                next.sizeInBytes() / 1024, next.gramCount(), System.currentTimeMillis() - started);
+    }
+
+    public Map<String, Object> stats() {
+        SearchSnapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", current != null);
+        stats.put("users", current == null ? 0 : current.size());
+        stats.put("grams", current == null ? 0 : current.gramCount());
+        stats.put("sizeBytes", current == null ? 0 : current.sizeInBytes());
+        stats.put("pending", pending.size());
+        stats.put("indexQueries", indexQueries.sum());
+        stats.put("databaseQueries", databaseQueries.sum());
+        return stats;
+    }
+}
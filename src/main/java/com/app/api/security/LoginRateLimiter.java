@@ -0,0 +1,126 @@
+package com.app.api.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.app.api.exception.TooManyLoginAttemptsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Throttles login attempts per client IP and per username before any lookup or password hashing,
+// so a credential-stuffing wave is turned away for the cost of two map lookups.
+// Each key is a token bucket kept as a single timestamp (GCRA): the time at which the bucket will
+// be full again. An attempt is a CAS on that timestamp, so there are no locks on the hot path.
+// Keys live in a Caffeine cache bounded by an estimate of their memory; a key expires once its
+// bucket would have refilled anyway, so expiry never lets anyone in earlier. Eviction for memory
+// can drop a bucket that is still refilling and so reset its limit; those are counted.
+@Component
+public class LoginRateLimiter {
+
+    // Caffeine node, AtomicLong and String headers; the key characters are added per entry
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final Limit ipLimit;
+    private final Limit usernameLimit;
+
+    public LoginRateLimiter(MeterRegistry registry,
+                            @Value("${app.security.login-limit.ip.attempts:20}") int ipAttempts,
+                            @Value("${app.security.login-limit.ip.period:PT1M}") Duration ipPeriod,
+                            @Value("${app.security.login-limit.ip.burst:20}") int ipBurst,
+                            @Value("${app.security.login-limit.ip.max-memory:16MB}") DataSize ipMaxMemory,
+                            @Value("${app.security.login-limit.username.attempts:5}") int usernameAttempts,
+                            @Value("${app.security.login-limit.username.period:PT1M}") Duration usernamePeriod,
+                            @Value("${app.security.login-limit.username.burst:10}") int usernameBurst,
+                            @Value("${app.security.login-limit.username.max-memory:16MB}") DataSize usernameMaxMemory) {
+        this.ipLimit = new Limit("ip", ipAttempts, ipPeriod, ipBurst, ipMaxMemory, registry);
+        this.usernameLimit = new Limit("username", usernameAttempts, usernamePeriod, usernameBurst,
+                usernameMaxMemory, registry);
+    }
+
+    // Takes one attempt from both buckets, or throws TooManyLoginAttemptsException (429).
+    // The IP is checked first, so a single client spraying usernames does not fill the username buckets.
+    public void acquire(String clientIp, String username) {
+        ipLimit.acquire(clientIp);
+        if (username != null) {
+            usernameLimit.acquire(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static final class Limit {
+
+        private final boolean enabled;
+        // Time between attempts at the sustained rate, and how far ahead of now a bucket may run
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Cache<String, AtomicLong> buckets;
+        private final Counter rejected;
+        private final Counter reset;
+
+        Limit(String type, int attempts, Duration period, int burst, DataSize maxMemory, MeterRegistry registry) {
+            if (attempts > 0 && burst < 1) {
+                throw new IllegalArgumentException("app.security.login-limit." + type + ".burst must be at least 1");
+            }
+            this.enabled = attempts > 0;
+            this.intervalNanos = enabled ? period.toNanos() / attempts : 0;
+            this.toleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+            this.rejected = Counter.builder("login.limiter.rejected").tag("key", type)
+                    .description("Login attempts rejected by the rate limiter").register(registry);
+            this.reset = Counter.builder("login.limiter.reset").tag("key", type)
+                    .description("Keys evicted for memory before their bucket refilled").register(registry);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumWeight(maxMemory.toBytes())
+                    .weigher((String key, AtomicLong bucket) -> ENTRY_OVERHEAD_BYTES + 2 * key.length())
+                    .expireAfterAccess(toleranceNanos + intervalNanos, TimeUnit.NANOSECONDS)
+                    .evictionListener((String key, AtomicLong bucket, RemovalCause cause) -> {
+                        if (cause == RemovalCause.SIZE && bucket != null && isRefilling(bucket.get())) {
+                            reset.increment();
+                        }
+                    })
+                    .build();
+            Gauge.builder("login.limiter.keys", buckets, Cache::estimatedSize).tag("key", type)
+                    .description("Keys tracked by the login rate limiter").register(registry);
+            Gauge.builder("login.limiter.memory", buckets,
+                            cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                    .tag("key", type).baseUnit("bytes")
+                    .description("Estimated memory held by the login rate limiter's keys").register(registry);
+        }
+
+        void acquire(String key) {
+            if (!enabled) {
+                return;
+            }
+            AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+            long now = System.nanoTime();
+            while (true) {
+                long full = bucket.get();
+                long start = full == Long.MIN_VALUE || full - now < 0 ? now : full;
+                long ahead = start - now;
+                if (ahead > toleranceNanos) {
+                    rejected.increment();
+                    long retryAfterNanos = ahead - toleranceNanos;
+                    throw new TooManyLoginAttemptsException("Too many login attempts, please retry later.",
+                            Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999)));
+                }
+                if (bucket.compareAndSet(full, start + intervalNanos)) {
+                    return;
+                }
+            }
+        }
+
+        // Forgetting such a bucket gives its key a full burst again
+        private static boolean isRefilling(long full) {
+            return full != Long.MIN_VALUE && full - System.nanoTime() > 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.app.api.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.api.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+// Issues and verifies HMAC-SHA256 signed tokens (JWT compact format, HS256).
+// Verification is local: one HMAC and a revocation map lookup, no database access.
+@Component
+public class TokenService {
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    private static final Logger logger = LogManager.getLogger(TokenService.class);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final Mac macPrototype;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    // userId -> epoch millisecond of revocation; tokens issued at or before it are rejected.
+    // Entries only need to outlive the longest token, so they expire with the refresh TTL.
+    // The map is bounded: a revocation pushed out by size raises revokedBefore instead, which
+    // rejects every token issued up to then, so forgetting an entry never lets a token back in.
+    private final Cache<Long, Long> revokedUsers;
+    private final AtomicLong revokedBefore = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenService(ObjectMapper objectMapper,
+                        @Value("${app.security.token.secret:}") String secret,
+                        @Value("${app.security.token.access-ttl:PT15M}") Duration accessTtl,
+                        @Value("${app.security.token.refresh-ttl:P7D}") Duration refreshTtl,
+                        @Value("${app.security.token.max-revoked-users:100000}") long maxRevokedUsers) {
+        this.objectMapper = objectMapper;
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.revokedUsers = Caffeine.newBuilder()
+                .maximumSize(maxRevokedUsers)
+                .expireAfterWrite(refreshTtl)
+                .evictionListener((Long userId, Long revokedAt, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && revokedAt != null) {
+                        revokedBefore.accumulateAndGet(revokedAt, Math::max);
+                    }
+                })
+                .build();
+
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            logger.warn("app.security.token.secret is not set; using a random key, tokens will not survive a restart");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < 32) {
+                throw new IllegalStateException("app.security.token.secret must be at least 32 bytes long");
+            }
+        }
+        try {
+            this.macPrototype = Mac.getInstance("HmacSHA256");
+            this.macPrototype.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    public String issueAccessToken(User user) {
+        return issue(user, ACCESS, accessTtl);
+    }
+
+    public String issueRefreshToken(User user) {
+        return issue(user, REFRESH, refreshTtl);
+    }
+
+    public long getAccessTtlSeconds() {
+        return accessTtl.toSeconds();
+    }
+
+    // Verify signature, type, expiry and revocation; empty if the token must not be trusted
+    public Optional<TokenClaims> verify(String token, String expectedType) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot < 0 || firstDot == lastDot) {
+            return Optional.empty();
+        }
+        try {
+            byte[] expected = sign(token.substring(0, lastDot));
+            byte[] actual = DECODER.decode(token.substring(lastDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return Optional.empty();
+            }
+            JsonNode payload = objectMapper.readTree(DECODER.decode(token.substring(firstDot + 1, lastDot)));
+            // iat is in seconds; iat_ms carries the milliseconds the revocation check needs
+            long issuedAtMillis = payload.has("iat_ms") ? payload.path("iat_ms").asLong() : payload.path("iat").asLong() * 1000;
+            TokenClaims claims = new TokenClaims(Long.parseLong(payload.path("sub").asText()),
+                    payload.path("name").asText(), payload.path("typ").asText(),
+                    issuedAtMillis, payload.path("exp").asLong());
+
+            if (!expectedType.equals(claims.type()) || Instant.now().getEpochSecond() >= claims.expiresAt()) {
+                return Optional.empty();
+            }
+            Long revokedAt = revokedUsers.getIfPresent(claims.userId());
+            if (claims.issuedAtMillis() <= revokedBefore.get() || revokedAt != null && claims.issuedAtMillis() <= revokedAt) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (Exception e) {
+            // Malformed base64, JSON or claims
+            return Optional.empty();
+        }
+    }
+
+    // Reject every token issued to the user so far
+    public void revokeUser(Long userId) {
+        revokedUsers.put(userId, Instant.now().toEpochMilli());
+    }
+
+    private String issue(User user, String type, Duration ttl) {
+        long nowMillis = Instant.now().toEpochMilli();
+        long now = nowMillis / 1000;
+        ObjectNode payload = objectMapper.createObjectNode()
+                .put("sub", String.valueOf(user.getId()))
+                .put("name", user.getUsername())
+                .put("typ", type)
+                .put("iat", now)
+                .put("iat_ms", nowMillis)
+                .put("exp", now + ttl.toSeconds());
+        try {
+            String unsigned = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(payload));
+            return unsigned + "." + ENCODER.encodeToString(sign(unsigned));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not issue token", e);
+        }
+    }
+
+    private byte[] sign(String unsigned) throws CloneNotSupportedException {
+        // Mac is not thread-safe; cloning the initialised prototype is cheaper than init()
+        Mac mac = (Mac) macPrototype.clone();
+        return mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public record TokenClaims(long userId, String username, String type, long issuedAtMillis, long expiresAt) {}
+}
@@ -0,0 +1,30 @@
+package com.app.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Encodes the last seen user id as an opaque, URL-safe page cursor
+final class UserCursor {
+
+    private static final String PREFIX = "id:";
+
+    private UserCursor() {}
+
+    static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid page cursor.");
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException as well
+            throw new IllegalArgumentException("Invalid page cursor.", e);
+        }
+    }
+}
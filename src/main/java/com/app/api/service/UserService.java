@@ -1,10 +1,21 @@
 package com.app.api.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import com.app.api.exception.DuplicateFieldException;
+import com.app.api.model.BulkStatusRequest;
+import com.app.api.model.BulkUserResult;
 import com.app.api.model.User;
+import com.app.api.model.UserPage;
+import com.app.api.model.UserPatch;
+import com.app.api.model.UserSearchResult;
+import com.app.api.model.UserStatus;
+import com.app.api.model.UserView;
+import com.app.api.repository.UserVersion;
 
 public interface UserService {
     
@@ -17,18 +28,51 @@ public interface UserService {
     // Save user
     User save(User user) throws DuplicateFieldException;
 
+    // Save a batch of new users, reporting the outcome of every row
+    List<BulkUserResult> saveAll(List<User> users);
+
     // Soft delete user by marking as DELETED and setting deletedAt timestamp
     void delete(Long userId);
 
+    // Move every selected user to the given status, returning the number of rows changed
+    int updateStatus(BulkStatusRequest request, UserStatus status);
+
     // Find user by ID
     Optional<User> findById(Long userId);
 
-    // Get all users excluding DELETED ones
-    List<User> findAllUsers();
+    // Public fields of an active user by ID, for responses
+    Optional<UserView> findViewById(Long userId);
+
+    // Current updatedAt of an active user, without loading the full row
+    Optional<LocalDateTime> findVersionById(Long userId);
+
+    // Id/updatedAt of the rows findAllUsers() / findUsersPage() would return,
+    // plus the look-ahead row for pages, for computing list ETags
+    List<UserVersion> findAllUserVersions();
+    List<UserVersion> findUsersPageVersions(String after, Integer limit);
+
+    // Get all users excluding DELETED ones, capped at the unpaged limit
+    List<UserView> findAllUsers();
+
+    // Get one page of active users after the given cursor (null for the first page)
+    UserPage findUsersPage(String after, Integer limit);
+
+    // Type-ahead search of active users by name, username or email (prefix or infix)
+    List<UserSearchResult> searchUsers(String query, Integer limit);
+
+    // Stream users to the sink one at a time, optionally filtered by status and updatedAt >= since
+    void exportUsers(UserStatus status, LocalDateTime since, Consumer<UserView> sink);
 
     // Update user details
     User updateUser(Long userId, User userDetails) throws DuplicateFieldException;
 
+    // Update user details only if the current updatedAt passes the check (If-Match); null skips it
+    User updateUser(Long userId, User userDetails, Predicate<LocalDateTime> versionCheck) throws DuplicateFieldException;
+
+    // Apply a merge patch: only supplied fields are validated, checked for duplicates and written;
+    // a non-null versionCheck is enforced again by the write itself
+    User patchUser(Long userId, UserPatch patch, Predicate<LocalDateTime> versionCheck) throws DuplicateFieldException;
+
     // Permanently delete user (if needed)
     void deletePermanently(Long userId);
 }
\ No newline at end of file
@@ -1,68 +1,466 @@
 package com.app.api.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.app.api.availability.UserAvailabilityIndex;
+import com.app.api.cache.UserCache;
+import com.app.api.changes.UserChangeFeed;
 import com.app.api.exception.DuplicateFieldException;
 import com.app.api.exception.InvalidUpdateException;
+import com.app.api.exception.PreconditionFailedException;
 import com.app.api.exception.RecordNotFoundException;
+import com.app.api.metrics.UserMetrics;
+import com.app.api.model.BulkStatusRequest;
+import com.app.api.model.BulkUserResult;
 import com.app.api.model.User;
+import com.app.api.model.UserChangeType;
+import com.app.api.model.UserPage;
+import com.app.api.model.UserPatch;
+import com.app.api.model.UserSearchResult;
 import com.app.api.model.UserStatus;
+import com.app.api.model.UserView;
+import com.app.api.repository.UserKeys;
 import com.app.api.repository.UserRepository;
+import com.app.api.repository.UserStatisticsRepository;
+import com.app.api.repository.UserVersion;
+import com.app.api.routing.RoutingContext;
+import com.app.api.search.UserSearchIndex;
+import com.app.api.security.HashingPasswordEncoder;
+import com.app.api.security.TokenService;
+import com.app.api.statistics.UserStatistics;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
 @Service
+@Timed("users.service")
 public class UserServiceImpl implements UserService {
 
+    private static final Pattern UNIQUE_KEY = Pattern.compile("users[.(]\\s*(username|email)\\b", Pattern.CASE_INSENSITIVE);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private HashingPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private UserChangeFeed changeFeed;
+
+    @Autowired
+    private UserStatistics statistics;
+
+    @Autowired
+    private UserStatisticsRepository statisticsRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserMetrics userMetrics;
+
+    // When false, writes skip the duplicate lookup and rely on the unique keys instead
+    @Value("${app.users.duplicate-check.precheck:true}")
+    private boolean precheckDuplicates;
+
+    // With read/write splitting, only lookups that run on the primary fill the user cache
+    @Value("${app.datasource.routing.enabled:false}")
+    private boolean routingEnabled;
+
+    @Value("${app.users.page.default-limit:50}")
+    private int defaultPageLimit;
+
+    @Value("${app.users.page.max-limit:500}")
+    private int maxPageLimit;
+
+    @Value("${app.users.unpaged-cap:1000}")
+    private int unpagedCap;
+
+    @Value("${app.users.search.default-limit:10}")
+    private int defaultSearchLimit;
+
+    @Value("${app.users.search.max-limit:50}")
+    private int maxSearchLimit;
+
+    @Value("${app.users.bulk.max-size:10000}")
+    private int bulkMaxSize;
+
+    @Value("${app.users.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${app.users.bulk.status-chunk-size:1000}")
+    private int statusChunkSize;
 
     @Override
     public User findByUsername(String username) {
-        return userRepository.findByUsernameAndStatus(username, UserStatus.ACTIVE);
+        Optional<User> cached = userCache.getByUsername(username);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long version = userCache.version();
+        User user = userRepository.findByUsernameAndStatus(username, UserStatus.ACTIVE);
+        if (mayCache()) {
+            userCache.put(user, version);
+        }
+        return user;
     }
 
     @Override
     public User findByEmail(String email) {
-        return userRepository.findByEmailAndStatus(email, UserStatus.ACTIVE);
+        Optional<User> cached = userCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long version = userCache.version();
+        User user = userRepository.findByEmailAndStatus(email, UserStatus.ACTIVE);
+        if (mayCache()) {
+            userCache.put(user, version);
+        }
+        return user;
     }
 
     // Save a new user (Create)
     @Override
     public User save(User user) throws DuplicateFieldException {
         // Check if username or email exists with any status
-        if (userRepository.findByUsername(user.getUsername()) != null) {
-            throw new DuplicateFieldException("Username already exists.");
-        }
-        if (userRepository.findByEmail(user.getEmail()) != null) {
-            throw new DuplicateFieldException("Email already exists.");
+        if (precheckDuplicates) {
+            checkDuplicates(user.getUsername(), user.getEmail(), null);
         }
 
         // Encode password and set user status to ACTIVE
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setStatus(UserStatus.ACTIVE);
-        return userRepository.save(user);
+        User savedUser;
+        try {
+            // Hashing and checks stay outside, so the transaction only spans the two inserts
+            savedUser = transactionTemplate.execute(status -> {
+                availabilityIndex.add(user.getUsername(), user.getEmail());
+                User saved = userRepository.saveAndFlush(user);
+                changeFeed.recorded(UserChangeType.CREATED, List.of(saved.getId()));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw toDuplicateFieldException(e);
+        }
+        searchIndex.indexed(savedUser);
+        statistics.registered(List.of(savedUser.getCreatedAt()));
+        return savedUser;
+    }
+
+    // One projection query tells whether the username and/or email are taken by another user.
+    // The query matches case-insensitively, so the match is told apart the same way.
+    private void checkDuplicates(String username, String email, Long currentUserId) {
+        List<UserKeys> matches = userRepository.findKeysByUsernameOrEmail(username, email);
+        String usernameKey = User.uniqueKey(username);
+        String emailKey = User.uniqueKey(email);
+        for (UserKeys keys : matches) {
+            if (!keys.getId().equals(currentUserId) && User.uniqueKey(keys.getUsername()).equals(usernameKey)) {
+                throw duplicateUsername();
+            }
+        }
+        for (UserKeys keys : matches) {
+            if (!keys.getId().equals(currentUserId) && User.uniqueKey(keys.getEmail()).equals(emailKey)) {
+                throw duplicateEmail();
+            }
+        }
+    }
+
+    // Map a unique key violation on users.username / users.email to the usual duplicate messages.
+    // MySQL reports "for key 'users.username'", H2 "ON PUBLIC.USERS(USERNAME ...)".
+    private RuntimeException toDuplicateFieldException(DataIntegrityViolationException e) {
+        Matcher matcher = UNIQUE_KEY.matcher(String.valueOf(e.getMostSpecificCause().getMessage()));
+        if (matcher.find()) {
+            return matcher.group(1).equalsIgnoreCase("username") ? duplicateUsername() : duplicateEmail();
+        }
+        return e;
+    }
+
+    private DuplicateFieldException duplicateUsername() {
+        userMetrics.duplicateUsername();
+        return new DuplicateFieldException("Username already exists.");
+    }
+
+    private DuplicateFieldException duplicateEmail() {
+        userMetrics.duplicateEmail();
+        return new DuplicateFieldException("Email already exists.");
+    }
+
+    // Save a batch of new users (Bulk create)
+    @Override
+    public List<BulkUserResult> saveAll(List<User> users) {
+        if (users.size() > bulkMaxSize) {
+            throw new IllegalArgumentException("A bulk request cannot contain more than " + bulkMaxSize + " users.");
+        }
+        BulkUserResult[] results = new BulkUserResult[users.size()];
+
+        // Validate every row and reject duplicates inside the batch itself (ignoring case, like the unique keys)
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user == null) {
+                results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.INVALID, null, "User is required.");
+                continue;
+            }
+            Set<ConstraintViolation<User>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                String message = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining(" "));
+                results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.INVALID, user, message);
+            } else if (!usernames.add(User.uniqueKey(user.getUsername()))) {
+                userMetrics.duplicateUsername();
+                results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.DUPLICATE, user, "Username already exists.");
+            } else if (!emails.add(User.uniqueKey(user.getEmail()))) {
+                userMetrics.duplicateEmail();
+                results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.DUPLICATE, user, "Email already exists.");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // Check the remaining rows against the table, one IN (...) query per chunk
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        for (List<Integer> chunk : chunks(candidates, bulkChunkSize)) {
+            Set<String> chunkUsernames = new HashSet<>();
+            Set<String> chunkEmails = new HashSet<>();
+            for (int i : chunk) {
+                chunkUsernames.add(users.get(i).getUsername());
+                chunkEmails.add(users.get(i).getEmail());
+            }
+            for (UserKeys keys : userRepository.findKeysByUsernameInOrEmailIn(chunkUsernames, chunkEmails)) {
+                existingUsernames.add(User.uniqueKey(keys.getUsername()));
+                existingEmails.add(User.uniqueKey(keys.getEmail()));
+            }
+        }
+        List<User> toInsert = new ArrayList<>();
+        List<Integer> toInsertIndexes = new ArrayList<>();
+        for (int i : candidates) {
+            User user = users.get(i);
+            if (existingUsernames.contains(User.uniqueKey(user.getUsername()))) {
+                userMetrics.duplicateUsername();
+                results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.DUPLICATE, user, "Username already exists.");
+            } else if (existingEmails.contains(User.uniqueKey(user.getEmail()))) {
+                userMetrics.duplicateEmail();
+                results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.DUPLICATE, user, "Email already exists.");
+            } else {
+                user.setId(null);
+                user.setStatus(UserStatus.ACTIVE);
+                toInsert.add(user);
+                toInsertIndexes.add(i);
+            }
+        }
+
+        // BCrypt dominates the cost of a bulk import; the hashing pool spreads it over its threads
+        List<String> hashes = passwordEncoder.encodeAll(toInsert.stream().map(User::getPassword).toList());
+        for (int position = 0; position < toInsert.size(); position++) {
+            toInsert.get(position).setPassword(hashes.get(position));
+        }
+
+        // Insert chunk by chunk; each chunk is one transaction sent as JDBC batches
+        for (int start = 0; start < toInsert.size(); start += bulkChunkSize) {
+            int end = Math.min(start + bulkChunkSize, toInsert.size());
+            List<User> chunk = toInsert.subList(start, end);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    chunk.forEach(user -> availabilityIndex.add(user.getUsername(), user.getEmail()));
+                    userRepository.saveAll(chunk);
+                    entityManager.flush();
+                    entityManager.clear();
+                    changeFeed.recorded(UserChangeType.CREATED, chunk.stream().map(User::getId).toList());
+                });
+                for (int position = start; position < end; position++) {
+                    int i = toInsertIndexes.get(position);
+                    results[i] = BulkUserResult.created(i, toInsert.get(position));
+                    searchIndex.indexed(toInsert.get(position));
+                }
+                statistics.registered(chunk.stream().map(User::getCreatedAt).toList());
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent write took one of the keys; the whole chunk was rolled back
+                for (int position = start; position < end; position++) {
+                    int i = toInsertIndexes.get(position);
+                    results[i] = BulkUserResult.rejected(i, BulkUserResult.Status.FAILED, toInsert.get(position),
+                            "Conflicting write while saving this batch, please retry the row.");
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += size) {
+            chunks.add(items.subList(start, Math.min(start + size, items.size())));
+        }
+        return chunks;
     }
 
     // Find a user by ID (Read)
     public Optional<User> findById(Long userId) {
-        return userRepository.findByIdAndStatus(userId, UserStatus.ACTIVE);
+        Optional<User> cached = userCache.get(userId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long version = userCache.version();
+        Optional<User> user = userRepository.findByIdAndStatus(userId, UserStatus.ACTIVE);
+        if (mayCache()) {
+            user.ifPresent(found -> userCache.put(found, version));
+        }
+        return user;
+    }
+
+    // A replica can still return a row older than a write whose cache eviction has already run.
+    // Cached, that row would be served to everyone, the writer included, until it expires, so
+    // with read/write splitting only reads pinned to the primary (ReadYourWritesFilter) are cached.
+    private boolean mayCache() {
+        return !routingEnabled || RoutingContext.isPrimaryRequired();
+    }
+
+    // Served from the user cache when present, otherwise from a projection of the public columns
+    @Override
+    public Optional<UserView> findViewById(Long userId) {
+        Optional<User> cached = userCache.get(userId);
+        if (cached.isPresent()) {
+            return cached.map(UserView::of);
+        }
+        return userRepository.findViewByIdAndStatus(userId, UserStatus.ACTIVE);
     }
 
-    // Get all users (excluding DELETED)
-    public List<User> findAllUsers() {
-        return userRepository.findAllByStatus(UserStatus.ACTIVE); // Only return active users
+    // Get all users (excluding DELETED), never more than the unpaged cap
+    public List<UserView> findAllUsers() {
+        return userRepository.findViewsByStatusAfterId(UserStatus.ACTIVE, 0L, Limit.of(unpagedCap)); // Only return active users
+    }
+
+    // Get a page of active users using the id of the last row as the cursor
+    @Override
+    public UserPage findUsersPage(String after, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        // Fetch one extra row to find out whether another page exists
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        long afterId = after == null ? 0L : UserCursor.decode(after);
+        List<UserView> users = userRepository.findViewsByStatusAfterId(UserStatus.ACTIVE, afterId, fetchLimit);
+
+        if (users.size() <= pageSize) {
+            return new UserPage(users, null);
+        }
+        List<UserView> items = users.subList(0, pageSize);
+        return new UserPage(items, UserCursor.encode(items.get(pageSize - 1).id()));
+    }
+
+    private int pageSize(Integer limit) {
+        int pageSize = limit == null ? defaultPageLimit : limit;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Limit must be a positive number.");
+        }
+        return Math.min(pageSize, maxPageLimit);
+    }
+
+    @Override
+    public Optional<LocalDateTime> findVersionById(Long userId) {
+        Optional<User> cached = userCache.get(userId);
+        if (cached.isPresent()) {
+            return Optional.ofNullable(cached.get().getUpdatedAt());
+        }
+        return userRepository.findUpdatedAtByIdAndStatus(userId, UserStatus.ACTIVE);
+    }
+
+    @Override
+    public List<UserVersion> findAllUserVersions() {
+        return userRepository.findVersionsByStatusAfterId(UserStatus.ACTIVE, 0L, Limit.of(unpagedCap));
+    }
+
+    @Override
+    public List<UserVersion> findUsersPageVersions(String after, Integer limit) {
+        long afterId = after == null ? 0L : UserCursor.decode(after);
+        return userRepository.findVersionsByStatusAfterId(UserStatus.ACTIVE, afterId, Limit.of(pageSize(limit) + 1));
+    }
+
+    @Override
+    public List<UserSearchResult> searchUsers(String query, Integer limit) {
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Search query cannot be empty.");
+        }
+        int size = limit == null ? defaultSearchLimit : limit;
+        if (size < 1) {
+            throw new IllegalArgumentException("Limit must be a positive number.");
+        }
+        return searchIndex.search(trimmed, Math.min(size, maxSearchLimit));
+    }
+
+    // Export users as a stream of read models; nothing enters the persistence context,
+    // so memory stays flat however many rows are exported
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(UserStatus status, LocalDateTime since, Consumer<UserView> sink) {
+        try (Stream<UserView> users = streamForExport(status, since)) {
+            users.forEach(sink);
+        }
+    }
+
+    private Stream<UserView> streamForExport(UserStatus status, LocalDateTime since) {
+        if (status == null) {
+            return since == null ? userRepository.streamAllForExport() : userRepository.streamForExportUpdatedSince(since);
+        }
+        return since == null ? userRepository.streamForExportByStatus(status)
+                : userRepository.streamForExportByStatusUpdatedSince(status, since);
     }
 
     // Update an existing user (Update)
     public User updateUser(Long userId, User userDetails) throws DuplicateFieldException, InvalidUpdateException {
+        return updateUser(userId, userDetails, null);
+    }
+
+    // Update an existing user if its current version passes the check (If-Match); a null check
+    // updates unconditionally
+    @Override
+    public User updateUser(Long userId, User userDetails, Predicate<LocalDateTime> versionCheck)
+            throws DuplicateFieldException, InvalidUpdateException {
         Optional<User> userOptional = userRepository.findById(userId);
 
         // If user not found, throw a custom exception
@@ -77,28 +475,147 @@ public class UserServiceImpl implements UserService {
             throw new InvalidUpdateException("Updation is not allowed for this user.");
         }
 
+        if (versionCheck != null && !versionCheck.test(existingUser.getUpdatedAt())) {
+            throw new PreconditionFailedException("User was modified since it was last read.");
+        }
+
         // Check for duplicate username or email, excluding the current user
-        User userWithSameUsername = userRepository.findByUsername(userDetails.getUsername());
-        User userWithSameEmail = userRepository.findByEmail(userDetails.getEmail());
+        if (precheckDuplicates) {
+            checkDuplicates(userDetails.getUsername(), userDetails.getEmail(), existingUser.getId());
+        }
 
-        if (userWithSameUsername != null && !userWithSameUsername.getId().equals(existingUser.getId())) {
-            throw new DuplicateFieldException("Username already exists.");
+        // If password is provided, encode it before the transaction starts
+        String encodedPassword = null;
+        if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
+            encodedPassword = passwordEncoder.encode(userDetails.getPassword());
         }
-        if (userWithSameEmail != null && !userWithSameEmail.getId().equals(existingUser.getId())) {
-            throw new DuplicateFieldException("Email already exists.");
+        String newPassword = encodedPassword;
+
+        User updatedUser;
+        try {
+            updatedUser = transactionTemplate.execute(status -> {
+                // Before the fields change: the entity may still be managed (open-in-view) and
+                // would otherwise be flushed, moving the version on, ahead of the check
+                if (versionCheck != null) {
+                    existingUser.setUpdatedAt(claimVersion(userId, existingUser.getUpdatedAt()));
+                }
+                existingUser.setUsername(userDetails.getUsername());
+                existingUser.setEmail(userDetails.getEmail());
+                existingUser.setName(userDetails.getName());
+                if (newPassword != null) {
+                    existingUser.setPassword(newPassword);
+                }
+                availabilityIndex.add(existingUser.getUsername(), existingUser.getEmail());
+                User updated = userRepository.saveAndFlush(existingUser);
+                changeFeed.recorded(UserChangeType.UPDATED, List.of(userId));
+                return updated;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw toDuplicateFieldException(e);
+        }
+        userCache.evict(userId);
+        searchIndex.indexed(updatedUser);
+        return updatedUser;
+    }
+
+    // Partial update (PATCH) on the loaded entity; with @DynamicUpdate the UPDATE only lists the
+    // columns that actually changed. Validation, duplicate checks and BCrypt run before the
+    // transaction, so it only spans the version claim and the UPDATE, as in updateUser.
+    @Override
+    public User patchUser(Long userId, UserPatch patch, Predicate<LocalDateTime> versionCheck)
+            throws DuplicateFieldException, InvalidUpdateException {
+        User existingUser = userRepository.findById(userId)
+                .orElseThrow(() -> new RecordNotFoundException("No record found for the given user's id."));
+        if (!existingUser.getStatus().equals(UserStatus.ACTIVE)) {
+            throw new InvalidUpdateException("Updation is not allowed for this user.");
+        }
+        if (versionCheck != null && !versionCheck.test(existingUser.getUpdatedAt())) {
+            throw new PreconditionFailedException("User was modified since it was last read.");
         }
 
-        // Update fields
-        existingUser.setUsername(userDetails.getUsername());
-        existingUser.setEmail(userDetails.getEmail());
-        existingUser.setName(userDetails.getName());
+        if (!patch.getUnsupportedFields().isEmpty()) {
+            throw new IllegalArgumentException("These fields cannot be patched: " + String.join(", ", patch.getUnsupportedFields()));
+        }
+        validatePatchField("name", patch.hasName(), patch.getName());
+        validatePatchField("username", patch.hasUsername(), patch.getUsername());
+        validatePatchField("email", patch.hasEmail(), patch.getEmail());
+        validatePatchField("password", patch.hasPassword(), patch.getPassword());
 
-        // If password is provided, encode and update it
-        if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
-            existingUser.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+        boolean nameChanged = patch.hasName() && !patch.getName().equals(existingUser.getName());
+        boolean usernameChanged = patch.hasUsername() && !patch.getUsername().equals(existingUser.getUsername());
+        boolean emailChanged = patch.hasEmail() && !patch.getEmail().equals(existingUser.getEmail());
+        if (!nameChanged && !usernameChanged && !emailChanged && !patch.hasPassword()) {
+            return existingUser;
         }
 
-        return userRepository.save(existingUser);
+        // Only a changed username/email can collide with another user
+        if (precheckDuplicates && (usernameChanged || emailChanged)) {
+            checkDuplicates(usernameChanged ? patch.getUsername() : null, emailChanged ? patch.getEmail() : null, userId);
+        }
+        // A hash can't be compared without hashing, so BCrypt runs only when a password is sent
+        String newPassword = patch.hasPassword() ? passwordEncoder.encode(patch.getPassword()) : null;
+
+        User patchedUser;
+        try {
+            patchedUser = transactionTemplate.execute(status -> {
+                // Before the fields change, for the same reason as in updateUser
+                if (versionCheck != null) {
+                    existingUser.setUpdatedAt(claimVersion(userId, existingUser.getUpdatedAt()));
+                }
+                if (nameChanged) {
+                    existingUser.setName(patch.getName());
+                }
+                if (usernameChanged) {
+                    existingUser.setUsername(patch.getUsername());
+                }
+                if (emailChanged) {
+                    existingUser.setEmail(patch.getEmail());
+                }
+                if (newPassword != null) {
+                    existingUser.setPassword(newPassword);
+                }
+                if (usernameChanged || emailChanged) {
+                    availabilityIndex.add(existingUser.getUsername(), existingUser.getEmail());
+                }
+                User patched = userRepository.saveAndFlush(existingUser);
+                changeFeed.recorded(UserChangeType.UPDATED, List.of(userId));
+                return patched;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw toDuplicateFieldException(e);
+        }
+        userCache.evict(userId);
+        if (nameChanged || usernameChanged || emailChanged) {
+            searchIndex.indexed(patchedUser);
+        }
+        return patchedUser;
+    }
+
+    // The If-Match check ran on a read that another writer may have overtaken since (BCrypt and
+    // the duplicate checks sit in between); only the write itself can tell, by matching the version.
+    // Returns the new version, which the bulk update does not copy into the loaded entity: a write
+    // that then changes no column runs no UPDATE (and no @PreUpdate), and would answer an old ETag.
+    private LocalDateTime claimVersion(Long userId, LocalDateTime matchedVersion) {
+        LocalDateTime now = User.now();
+        if (userRepository.advanceVersion(userId, matchedVersion, now) == 0) {
+            throw new PreconditionFailedException("User was modified since it was last read.");
+        }
+        return now;
+    }
+
+    // A supplied field must be non-null and pass the same constraints as on registration
+    private void validatePatchField(String field, boolean present, String value) {
+        if (!present) {
+            return;
+        }
+        if (value == null) {
+            throw new IllegalArgumentException(field + " cannot be removed.");
+        }
+        Set<ConstraintViolation<User>> violations = validator.validateValue(User.class, field, value);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining(" ")));
+        }
     }
 
     // Soft delete user (mark as DELETED)
@@ -107,16 +624,100 @@ public class UserServiceImpl implements UserService {
         Optional<User> user = userRepository.findById(userId);
         if (user.isPresent()) {
             User existingUser = user.get();
+            UserStatus previousStatus = existingUser.getStatus();
             existingUser.setStatus(UserStatus.DELETED);
-            existingUser.setDeletedAt(LocalDateTime.now());
-            userRepository.save(existingUser);
+            existingUser.setDeletedAt(User.now());
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAndFlush(existingUser);
+                changeFeed.recorded(UserChangeType.DELETED, List.of(userId));
+            });
+            statistics.statusChanged(previousStatus, UserStatus.DELETED, 1);
+            userCache.evict(userId);
+            searchIndex.removed(List.of(userId));
+            tokenService.revokeUser(userId);
         } else {
             throw new RecordNotFoundException("User not found");
         }
     }
 
+    // Bulk status change (soft delete, deactivate, reactivate) without loading entities.
+    // Each chunk is its own short UPDATE transaction so large batches never hold long row locks.
+    @Override
+    public int updateStatus(BulkStatusRequest request, UserStatus status) {
+        if (request.hasIds() == request.hasFilter()) {
+            throw new IllegalArgumentException("Provide either a list of ids or a status/updatedBefore filter.");
+        }
+        LocalDateTime now = User.now();
+        LocalDateTime deletedAt = status == UserStatus.DELETED ? now : null;
+        int affected = 0;
+
+        if (request.hasIds()) {
+            List<Long> ids = request.getIds().stream().distinct().toList();
+            for (int start = 0; start < ids.size(); start += statusChunkSize) {
+                List<Long> chunk = ids.subList(start, Math.min(start + statusChunkSize, ids.size()));
+                affected += updateStatusChunk(chunk, status, deletedAt, now);
+            }
+            return affected;
+        }
+
+        long afterId = 0;
+        while (true) {
+            List<Long> chunk = findIdsByFilter(request.getStatus(), request.getUpdatedBefore(), afterId);
+            if (chunk.isEmpty()) {
+                return affected;
+            }
+            affected += updateStatusChunk(chunk, status, deletedAt, now);
+            afterId = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    // At least one of the filters is set (checked by the caller)
+    private List<Long> findIdsByFilter(UserStatus status, LocalDateTime updatedBefore, long afterId) {
+        Limit limit = Limit.of(statusChunkSize);
+        if (status == null) {
+            return userRepository.findIdsUpdatedBeforeAfterId(updatedBefore, afterId, limit);
+        }
+        return updatedBefore == null ? userRepository.findIdsByStatusAfterId(status, afterId, limit)
+                : userRepository.findIdsByStatusUpdatedBeforeAfterId(status, updatedBefore, afterId, limit);
+    }
+
+    private int updateStatusChunk(List<Long> ids, UserStatus status, LocalDateTime deletedAt, LocalDateTime now) {
+        Integer updated = transactionTemplate.execute(tx -> {
+            // Locking the rows first keeps the counted moves and the UPDATE in agreement
+            Map<UserStatus, Long> moving = statisticsRepository.lockStatusesByIdIn(ids).stream()
+                    .map(UserStatus::valueOf)
+                    .collect(Collectors.groupingBy(from -> from, () -> new EnumMap<>(UserStatus.class), Collectors.counting()));
+            moving.forEach((from, count) -> statistics.statusChanged(from, status, count));
+            changeFeed.statusChanging(ids, status);
+            return userRepository.updateStatusByIdIn(ids, status, deletedAt, now);
+        });
+        userCache.evictAll(ids);
+        if (status != UserStatus.ACTIVE) {
+            ids.forEach(tokenService::revokeUser);
+            searchIndex.removed(ids);
+        } else if (updated != null && updated > 0) {
+            searchIndex.reactivated();
+        }
+        return updated == null ? 0 : updated;
+    }
+
     // Permanent delete user (if required)
     public void deletePermanently(Long userId) {
-        userRepository.deleteById(userId);
+        Boolean deleted = transactionTemplate.execute(status -> userRepository.findById(userId).map(user -> {
+            userRepository.delete(user);
+            userRepository.flush();
+            changeFeed.recorded(UserChangeType.PURGED, List.of(userId));
+            statistics.removed(user.getStatus(), user.getCreatedAt());
+            return true;
+        }).orElse(false));
+        // Unknown ids stop here, so they neither add stale keys to the availability index nor
+        // take up a slot among the revoked users
+        if (!Boolean.TRUE.equals(deleted)) {
+            return;
+        }
+        availabilityIndex.removed(1);
+        searchIndex.removed(List.of(userId));
+        userCache.evict(userId);
+        tokenService.revokeUser(userId);
     }
 }
\ No newline at end of file
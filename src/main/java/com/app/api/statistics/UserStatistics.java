@@ -0,0 +1,215 @@
+package com.app.api.statistics;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.api.model.User;
+import com.app.api.model.UserStatus;
+import com.app.api.repository.DayCount;
+import com.app.api.repository.StatusCount;
+import com.app.api.repository.UserStatisticsRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// User counts by status and registrations per day, kept in memory so GET /api/users/stats never
+// touches the users table. The service reports every status transition after it commits and the
+// counters (LongAdders, so concurrent writers don't contend) are adjusted in place.
+//
+// A periodic reconciliation recounts with GROUP BY queries and corrects any drift, e.g. from
+// rows archived or changed outside the API. It adds (database count - count before the query)
+// to each counter, so transitions reported while the query runs are kept. A change committing
+// just as the query starts can be counted twice; the next reconciliation corrects it.
+@Component
+public class UserStatistics {
+
+    private static final Logger logger = LogManager.getLogger(UserStatistics.class);
+
+    private final UserStatisticsRepository statisticsRepository;
+    private final TaskExecutor taskExecutor;
+    private final int days;
+
+    private final Map<UserStatus, LongAdder> byStatus = new EnumMap<>(UserStatus.class);
+    private final ConcurrentMap<LocalDate, LongAdder> registrationsByDay = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastDrift;
+
+    public UserStatistics(UserStatisticsRepository statisticsRepository, MeterRegistry registry,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                          @Value("${app.users.stats.days:90}") int days) {
+        this.statisticsRepository = statisticsRepository;
+        this.taskExecutor = taskExecutor;
+        this.days = days;
+        for (UserStatus status : UserStatus.values()) {
+            LongAdder count = new LongAdder();
+            byStatus.put(status, count);
+            Gauge.builder("users.count", count, LongAdder::sum).tag("status", status.name())
+                    .description("Users by status, from the incrementally maintained statistics").register(registry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcileAsync();
+    }
+
+    // Call after users are registered
+    public void registered(List<LocalDateTime> createdAt) {
+        List<LocalDateTime> copy = List.copyOf(createdAt);
+        afterCommit(() -> {
+            byStatus.get(UserStatus.ACTIVE).add(copy.size());
+            copy.forEach(created -> day(created.toLocalDate()).increment());
+        });
+    }
+
+    // Call after users moved from one status to another
+    public void statusChanged(UserStatus from, UserStatus to, long count) {
+        if (from != to && count > 0) {
+            afterCommit(() -> {
+                byStatus.get(from).add(-count);
+                byStatus.get(to).add(count);
+            });
+        }
+    }
+
+    // Call after a user is permanently deleted
+    public void removed(UserStatus status, LocalDateTime createdAt) {
+        afterCommit(() -> {
+            byStatus.get(status).decrement();
+            if (createdAt != null) {
+                day(createdAt.toLocalDate()).decrement();
+            }
+        });
+    }
+
+    // Call after deleted users are archived; their registration days are corrected by the next reconciliation
+    public void archived(long count) {
+        afterCommit(() -> byStatus.get(UserStatus.DELETED).add(-count));
+    }
+
+    private LongAdder day(LocalDate date) {
+        return registrationsByDay.computeIfAbsent(date, d -> new LongAdder());
+    }
+
+    // Changes only count once committed; outside a transaction they already are
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.stats.reconcile-interval:PT10M}",
+            initialDelayString = "${app.users.stats.reconcile-interval:PT10M}")
+    public void reconcileAsync() {
+        if (reconciling.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                try {
+                    reconcile();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to reconcile user statistics", e);
+                } finally {
+                    reconciling.set(false);
+                }
+            });
+        }
+    }
+
+    private void reconcile() {
+        long started = System.currentTimeMillis();
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1L);
+
+        Map<UserStatus, Long> statusBefore = new EnumMap<>(UserStatus.class);
+        byStatus.forEach((status, count) -> statusBefore.put(status, count.sum()));
+        List<StatusCount> statusCounts = statisticsRepository.countGroupedByStatus();
+
+        Map<LocalDate, Long> dayBefore = new HashMap<>();
+        registrationsByDay.forEach((day, count) -> dayBefore.put(day, count.sum()));
+        List<DayCount> dayCounts = statisticsRepository.countRegistrationsByDaySince(firstDay.atStartOfDay());
+
+        long drift = 0;
+        Map<UserStatus, Long> actualByStatus = new EnumMap<>(UserStatus.class);
+        statusCounts.forEach(row -> actualByStatus.put(row.getStatus(), row.getCount()));
+        for (UserStatus status : UserStatus.values()) {
+            long correction = actualByStatus.getOrDefault(status, 0L) - statusBefore.get(status);
+            byStatus.get(status).add(correction);
+            drift += Math.abs(correction);
+        }
+        Map<LocalDate, Long> actualByDay = new HashMap<>();
+        dayCounts.forEach(row -> actualByDay.put(row.getDay(), row.getCount()));
+        for (LocalDate day = firstDay; !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+            long correction = actualByDay.getOrDefault(day, 0L) - dayBefore.getOrDefault(day, 0L);
+            if (correction != 0) {
+                day(day).add(correction);
+                drift += Math.abs(correction);
+            }
+        }
+        registrationsByDay.keySet().removeIf(day -> day.isBefore(firstDay));
+
+        boolean first = reconciledAt == null;
+        reconciledAt = User.now();
+        lastDrift = first ? 0 : drift;
+        if (!first && drift > 0) {
+            logger.warn("Corrected user statistics by {} in total", drift);
+        }
+        logger.info("Reconciled user statistics in {} ms", System.currentTimeMillis() - started);
+    }
+
+    // Counts for the last `lastDays` days (today included), oldest first
+    public Map<String, Object> stats(int lastDays) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Long> statuses = new LinkedHashMap<>();
+        long total = 0;
+        for (UserStatus status : UserStatus.values()) {
+            long count = byStatus.get(status).sum();
+            statuses.put(status.name(), count);
+            total += count;
+        }
+        Map<String, Long> registrations = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.minusDays(Math.min(lastDays, days) - 1L); !day.isAfter(today); day = day.plusDays(1)) {
+            LongAdder count = registrationsByDay.get(day);
+            registrations.put(day.toString(), count == null ? 0 : count.sum());
+        }
+        stats.put("ready", reconciledAt != null);
+        stats.put("total", total);
+        stats.put("byStatus", statuses);
+        stats.put("registrationsPerDay", registrations);
+        stats.put("reconciledAt", reconciledAt);
+        stats.put("lastDrift", lastDrift);
+        return stats;
+    }
+
+    public int getDays() {
+        return days;
+    }
+}
@@ -0,0 +1,61 @@
+package com.app.api;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Boots the whole application once (Spring caches the context) on H2 in MySQL mode. Every test
+// class shares the database, so each user gets a fresh username and email.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class ApiTestSupport {
+
+    protected static final String PASSWORD = "Secret@1";
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    // A username no other test has used, e.g. "patch_7"
+    protected static String uniqueUsername(String prefix) {
+        return prefix + "_" + USERS.incrementAndGet();
+    }
+
+    protected static String emailOf(String username) {
+        return username.replace("_", ".") + "@example.com";
+    }
+
+    protected static String userJson(String name, String username, String email, String password) {
+        return "{\"name\":\"" + name + "\",\"username\":\"" + username + "\",\"email\":\"" + email
+                + "\",\"password\":\"" + password + "\"}";
+    }
+
+    // Registers a user through the API and returns its id
+    protected long register(String username) throws Exception {
+        String body = mockMvc.perform(post("/api/register").contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Test User", username, emailOf(username), PASSWORD)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return json(body).get("id").asLong();
+    }
+
+    protected JsonNode json(String body) throws Exception {
+        return objectMapper.readTree(body);
+    }
+}
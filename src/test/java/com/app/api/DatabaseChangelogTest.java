@@ -0,0 +1,77 @@
+package com.app.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+// Migrations that change existing data: changeset 5 shortens name and username to 20 characters
+// and must stop, not truncate, when a row is longer
+class DatabaseChangelogTest {
+
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.yaml";
+
+    // Changesets 2, 3 and 4, the ones before the resize
+    private static final int BEFORE_RESIZE = 3;
+
+    @Test
+    void haltsTheResizeWhileANameIsTooLong() throws Exception {
+        try (Connection connection = open("changelog_long_name")) {
+            liquibase(connection).update(BEFORE_RESIZE, new Contexts(), new LabelExpression());
+            insertUser(connection, "A Name Of Twenty Five Char");
+
+            assertThatThrownBy(() -> liquibase(connection).update(new Contexts(), new LabelExpression()))
+                    .hasStackTraceContaining("longer than 20 characters");
+            assertThat(name(connection)).isEqualTo("A Name Of Twenty Five Char");
+        }
+    }
+
+    @Test
+    void resizesWhenEveryNameFits() throws Exception {
+        try (Connection connection = open("changelog_short_name")) {
+            liquibase(connection).update(BEFORE_RESIZE, new Contexts(), new LabelExpression());
+            insertUser(connection, "Short Name");
+
+            liquibase(connection).update(new Contexts(), new LabelExpression());
+            assertThat(name(connection)).isEqualTo("Short Name");
+        }
+    }
+
+    // Without DATABASE_TO_LOWER: a second Liquibase run looks for its DATABASECHANGELOG in upper case
+    private static Connection open(String database) throws Exception {
+        return DriverManager.getConnection("jdbc:h2:mem:" + database + ";MODE=MySQL", "sa", "");
+    }
+
+    private static Liquibase liquibase(Connection connection) throws Exception {
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        return new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+    }
+
+    private static void insertUser(Connection connection, String name) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("insert into users (name, username, email, password, status) values ('" + name
+                    + "', 'long_name', 'long.name@example.com', 'hash', 'ACTIVE')");
+        }
+    }
+
+    private static String name(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("select name from users")) {
+            rows.next();
+            return rows.getString(1);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.app.api.availability;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+// Sized for 100,000 keys at 1%, the defaults scaled down: no false negatives, and about the
+// configured false positive rate once the filter is full
+class BloomFilterTest {
+
+    private static final int CAPACITY = 100_000;
+
+    @Test
+    void findsEveryKeyItHolds() {
+        BloomFilter filter = new BloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("u:user_" + i);
+        }
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(filter.mightContain("u:user_" + i)).as("u:user_%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void keepsTheFalsePositiveRateNearTheConfiguredOneAtCapacity() {
+        BloomFilter filter = new BloomFilter(CAPACITY, 0.01);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("u:user_" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (filter.mightContain("u:absent_" + i)) {
+                falsePositives++;
+            }
+        }
+        // 1% expected; the sizing rounds up, so a filter at capacity should not do much worse
+        assertThat((double) falsePositives / CAPACITY).isLessThan(0.015);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    void countsAKeyAddedAgainOnce() {
+        BloomFilter filter = new BloomFilter(CAPACITY, 0.01);
+
+        filter.put("e:ann@example.com");
+        filter.put("e:ann@example.com");
+
+        assertThat(filter.insertions()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.app.api.availability;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.app.api.repository.UserKeys;
+import com.app.api.repository.UserRepository;
+
+// Which checks the filter answers on its own and which go on to the database.
+// Builds run on the calling thread.
+class UserAvailabilityIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private UserAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserAvailabilityIndex(userRepository, mock(PlatformTransactionManager.class), Runnable::run,
+                1_000, 0.01);
+        when(userRepository.streamAllKeys()).thenAnswer(invocation -> Stream.of(
+                keys(1, "Alice", "Alice@Example.com"),
+                keys(2, "gone", "gone@example.com")));
+        index.rebuildAsync();
+    }
+
+    @Test
+    void answersFreeValuesWithoutTheDatabase() {
+        assertThat(index.isUsernameAvailable("bob")).isTrue();
+        assertThat(index.isEmailAvailable("bob@example.com")).isTrue();
+
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+        assertThat(index.stats()).containsEntry("definitelyFree", 2L).containsEntry("databaseChecks", 0L);
+    }
+
+    @Test
+    void foldsCaseSoAnyCasingOfATakenValueGoesToTheDatabase() {
+        when(userRepository.existsByUsername("ALICE")).thenReturn(true);
+        when(userRepository.existsByEmail("alice@example.COM")).thenReturn(true);
+
+        assertThat(index.isUsernameAvailable("ALICE")).isFalse();
+        assertThat(index.isEmailAvailable("alice@example.COM")).isFalse();
+        assertThat(index.stats()).containsEntry("databaseChecks", 2L);
+    }
+
+    @Test
+    void letsTheDatabaseClearAPossiblyTakenValue() {
+        // Still in the filter, but deleted since it was built
+        when(userRepository.existsByUsername("gone")).thenReturn(false);
+
+        assertThat(index.isUsernameAvailable("gone")).isTrue();
+        verify(userRepository).existsByUsername("gone");
+        assertThat(index.stats()).containsEntry("databaseChecks", 1L).containsEntry("definitelyFree", 0L);
+    }
+
+    @Test
+    void neverReportsAnAddedValueFree() {
+        index.add("Carol", "carol@example.com");
+        when(userRepository.existsByEmail("CAROL@example.com")).thenReturn(true);
+
+        assertThat(index.isEmailAvailable("CAROL@example.com")).isFalse();
+        verify(userRepository).existsByEmail("CAROL@example.com");
+    }
+
+    private static UserKeys keys(long id, String username, String email) {
+        return new UserKeys() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.app.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.app.api.ApiTestSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// POST /api/users/bulk: every row gets its own status, and a bad row never fails its neighbours
+class BulkRegistrationTest extends ApiTestSupport {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Test
+    void reportsAStatusPerRow() throws Exception {
+        String existing = uniqueUsername("bulk");
+        register(existing);
+        String fresh = uniqueUsername("bulk");
+        String repeated = uniqueUsername("bulk");
+
+        String rows = "[" + String.join(",", List.of(
+                userJson("Fresh User", fresh, emailOf(fresh), PASSWORD),
+                userJson("Invalid User", "Not Valid", emailOf(uniqueUsername("bulk")), PASSWORD),
+                userJson("Existing User", existing, emailOf(uniqueUsername("bulk")), PASSWORD),
+                userJson("Repeated User", repeated, emailOf(repeated), PASSWORD),
+                userJson("Repeated Again", repeated, emailOf(uniqueUsername("bulk")), PASSWORD),
+                userJson("Same Email", uniqueUsername("bulk"), emailOf(fresh), PASSWORD))) + "]";
+        JsonNode results = json(mockMvc.perform(post("/api/users/bulk").with(user("tester"))
+                        .contentType(MediaType.APPLICATION_JSON).content(rows))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertThat(results).hasSize(6);
+        assertThat(results.findValuesAsText("status"))
+                .containsExactly("CREATED", "INVALID", "DUPLICATE", "CREATED", "DUPLICATE", "DUPLICATE");
+        assertThat(results.get(2).get("message").asText()).isEqualTo("Username already exists.");
+        assertThat(results.get(5).get("message").asText()).isEqualTo("Email already exists.");
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get("index").asInt()).isEqualTo(i);
+        }
+
+        long createdId = results.get(0).get("id").asLong();
+        mockMvc.perform(get("/api/users/{id}", createdId)).andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectsBatchesAboveTheLimit() throws Exception {
+        String rows = "[" + String.join(",", Collections.nCopies(10_001,
+                userJson("Too Many", "too_many", "too.many@example.com", PASSWORD))) + "]";
+        mockMvc.perform(post("/api/users/bulk").with(user("tester"))
+                        .contentType(MediaType.APPLICATION_JSON).content(rows))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void acceptsOneUserPerLine() throws Exception {
+        String first = uniqueUsername("bulk");
+        String second = uniqueUsername("bulk");
+        String rows = userJson("First User", first, emailOf(first), PASSWORD) + "\n"
+                + userJson("Second User", second, emailOf(second), PASSWORD) + "\n";
+
+        JsonNode results = json(mockMvc.perform(post("/api/users/bulk").with(user("tester"))
+                        .contentType(NDJSON).content(rows))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(results.findValuesAsText("status")).containsExactly("CREATED", "CREATED");
+    }
+
+    @Test
+    void stopsReadingLinesPastTheLimit() throws Exception {
+        // The malformed last line is never parsed: the batch is rejected for its size first
+        String rows = String.join("\n", Collections.nCopies(10_001,
+                userJson("Too Many", "too_many", "too.many@example.com", PASSWORD))) + "\n{not json";
+        String message = mockMvc.perform(post("/api/users/bulk").with(user("tester"))
+                        .contentType(NDJSON).content(rows))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(message).isEqualTo("A bulk request cannot contain more than 10000 users.");
+    }
+
+    @Test
+    void requiresAuthentication() throws Exception {
+        mockMvc.perform(post("/api/users/bulk").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isUnauthorized());
+    }
+}
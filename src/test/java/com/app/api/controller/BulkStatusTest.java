@@ -0,0 +1,55 @@
+package com.app.api.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.app.api.ApiTestSupport;
+
+// POST /api/users/bulk/{delete,deactivate,reactivate}: one set-based UPDATE per chunk that
+// leaves users already in the target status alone
+class BulkStatusTest extends ApiTestSupport {
+
+    @Test
+    void changesOnlyUsersNotYetInTheTargetStatus() throws Exception {
+        long first = register(uniqueUsername("status"));
+        long second = register(uniqueUsername("status"));
+        long third = register(uniqueUsername("status"));
+
+        changeStatus("deactivate", "{\"ids\":[" + first + "," + second + "]}", 2);
+        mockMvc.perform(get("/api/users/{id}", first)).andExpect(status().isNotFound());
+
+        // Only the third is still active; repeated ids count once
+        changeStatus("deactivate", "{\"ids\":[" + first + "," + second + "," + third + "," + third + "]}", 1);
+        changeStatus("reactivate", "{\"ids\":[" + first + "," + second + "," + third + "]}", 3);
+        mockMvc.perform(get("/api/users/{id}", first)).andExpect(status().isOk());
+
+        changeStatus("delete", "{\"ids\":[" + second + "]}", 1);
+        changeStatus("reactivate", "{\"ids\":[" + second + "]}", 1);
+    }
+
+    @Test
+    void rejectsARequestWithoutIdsOrFilter() throws Exception {
+        mockMvc.perform(post("/api/users/bulk/deactivate").with(user("tester"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void requiresAuthentication() throws Exception {
+        mockMvc.perform(post("/api/users/bulk/delete").contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[1]}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private void changeStatus(String operation, String body, int affected) throws Exception {
+        mockMvc.perform(post("/api/users/bulk/" + operation).with(user("tester"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(affected));
+    }
+}
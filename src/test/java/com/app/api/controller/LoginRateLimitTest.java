@@ -0,0 +1,77 @@
+package com.app.api.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.app.api.ApiTestSupport;
+import com.app.api.security.HashingPasswordEncoder;
+import com.app.api.service.UserService;
+
+// POST /api/login past the per-username limit: 429 with Retry-After, and neither the user
+// lookup nor the password hash runs for a rejected attempt. The spies and limits make this a
+// context of its own, so it gets its own database: Liquibase cannot migrate the shared one twice.
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:login-limit;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.security.login-limit.username.attempts=1",
+        "app.security.login-limit.username.period=PT1H",
+        "app.security.login-limit.username.burst=3"})
+class LoginRateLimitTest extends ApiTestSupport {
+
+    @SpyBean
+    private UserService userService;
+
+    @SpyBean
+    private HashingPasswordEncoder passwordEncoder;
+
+    @Test
+    void rejectsAttemptsPastTheBurstBeforeLookingUpTheUser() throws Exception {
+        String username = uniqueUsername("limited");
+        register(username);
+        clearInvocations(userService, passwordEncoder);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            login(username, "Wrong@1").andExpect(status().isUnauthorized());
+        }
+        verify(userService, times(3)).findByUsername(username);
+        verify(passwordEncoder, times(3)).matches(any(), anyString());
+
+        login(username, PASSWORD)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3600"));
+        verify(userService, times(3)).findByUsername(username);
+        verify(passwordEncoder, times(3)).matches(any(), anyString());
+    }
+
+    @Test
+    void limitsEachUsernameOnItsOwn() throws Exception {
+        String limited = uniqueUsername("limited");
+        String other = uniqueUsername("limited");
+        register(other);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            login(limited, "Wrong@1").andExpect(status().isUnauthorized());
+        }
+        clearInvocations(userService);
+
+        login(limited, "Wrong@1").andExpect(status().isTooManyRequests());
+        login(other, PASSWORD).andExpect(status().isOk());
+        verify(userService, never()).findByUsername(limited);
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return mockMvc.perform(post("/api/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+    }
+}
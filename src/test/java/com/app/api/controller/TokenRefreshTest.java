@@ -0,0 +1,67 @@
+package com.app.api.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.app.api.ApiTestSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// POST /api/token/refresh: a refresh token only works for an active user, and only as a refresh token
+class TokenRefreshTest extends ApiTestSupport {
+
+    @Test
+    void refusesToRefreshForADeactivatedUser() throws Exception {
+        String username = uniqueUsername("refresh");
+        long id = register(username);
+        String refreshToken = login(username).get("refreshToken").asText();
+        refresh(refreshToken).andExpect(status().isOk());
+
+        setStatus("deactivate", id);
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+
+        // Tokens from before the deactivation stay revoked; a new login gets working ones
+        setStatus("reactivate", id);
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+        refresh(login(username).get("refreshToken").asText()).andExpect(status().isOk());
+    }
+
+    @Test
+    void acceptsEachTokenOnlyForItsOwnPurpose() throws Exception {
+        String username = uniqueUsername("refresh");
+        register(username);
+        JsonNode tokens = login(username);
+
+        refresh(tokens.get("accessToken").asText()).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/users/cache/stats")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.get("refreshToken").asText()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/users/cache/stats")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.get("accessToken").asText()))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode login(String username) throws Exception {
+        return json(mockMvc.perform(post("/api/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/token/refresh").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+    }
+
+    private void setStatus(String action, long id) throws Exception {
+        mockMvc.perform(post("/api/users/bulk/" + action).with(user("tester"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[" + id + "]}"))
+                .andExpect(status().isOk());
+    }
+}
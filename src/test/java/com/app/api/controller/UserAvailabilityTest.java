@@ -0,0 +1,63 @@
+package com.app.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.app.api.ApiTestSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// GET /api/users/availability: free values are answered by the Bloom filter, values it may
+// hold are confirmed with the database
+class UserAvailabilityTest extends ApiTestSupport {
+
+    @BeforeEach
+    void waitForTheIndex() throws Exception {
+        // Built in the background once the application is ready
+        for (int attempt = 0; !stats().get("ready").asBoolean(); attempt++) {
+            assertThat(attempt).as("availability index built").isLessThan(100);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void checksATakenUsernameAndEmailWithTheDatabase() throws Exception {
+        String username = uniqueUsername("taken");
+        register(username);
+        long databaseChecks = stats().get("databaseChecks").asLong();
+
+        mockMvc.perform(get("/api/users/availability").param("username", username).param("email", emailOf(username)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(false))
+                .andExpect(jsonPath("$.email").value(false));
+        assertThat(stats().get("databaseChecks").asLong()).isEqualTo(databaseChecks + 2);
+    }
+
+    @Test
+    void answersAFreeUsernameFromTheFilter() throws Exception {
+        long definitelyFree = stats().get("definitelyFree").asLong();
+        long databaseChecks = stats().get("databaseChecks").asLong();
+
+        mockMvc.perform(get("/api/users/availability").param("username", uniqueUsername("free")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(true));
+        assertThat(stats().get("definitelyFree").asLong()).isEqualTo(definitelyFree + 1);
+        assertThat(stats().get("databaseChecks").asLong()).isEqualTo(databaseChecks);
+    }
+
+    @Test
+    void requiresAUsernameOrEmail() throws Exception {
+        mockMvc.perform(get("/api/users/availability")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode stats() throws Exception {
+        return json(mockMvc.perform(get("/api/users/availability/stats").with(user("tester")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,109 @@
+package com.app.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.app.api.ApiTestSupport;
+import com.fasterxml.jackson.databind.JsonNode;
+
+// GET /api/users/changes: committed changes in order, and a reader resuming from `next` neither
+// misses nor repeats an entry. Entries get their position after commit, so reads poll briefly.
+class UserChangeFeedTest extends ApiTestSupport {
+
+    private static final long PUBLISH_TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void resumesFromTheLastPositionRead() throws Exception {
+        long id = register(uniqueUsername("feed"));
+        JsonNode created = awaitChange(0, id, "CREATED");
+        long start = created.get("sequence").asLong();
+
+        mockMvc.perform(patch("/api/users/{id}", id).contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Feed Rename\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/users/{id}", id)).andExpect(status().isOk());
+        awaitChange(start, id, "DELETED");
+
+        // One entry at a time: each page starts right after the previous one's `next`
+        JsonNode first = changes(start, 1);
+        assertThat(first.get("changes")).hasSize(1);
+        JsonNode updated = first.get("changes").get(0);
+        assertThat(updated.get("userId").asLong()).isEqualTo(id);
+        assertThat(updated.get("type").asText()).isEqualTo("UPDATED");
+        assertThat(updated.get("name").asText()).isEqualTo("Feed Rename");
+        assertThat(first.get("next").asLong()).isEqualTo(updated.get("sequence").asLong());
+
+        JsonNode second = changes(first.get("next").asLong(), 1);
+        JsonNode deleted = second.get("changes").get(0);
+        assertThat(deleted.get("sequence").asLong()).isGreaterThan(updated.get("sequence").asLong());
+        assertThat(deleted.get("userId").asLong()).isEqualTo(id);
+        assertThat(deleted.get("type").asText()).isEqualTo("DELETED");
+
+        // Nothing after the last entry: an empty page keeps the position
+        JsonNode end = changes(second.get("next").asLong(), 10);
+        assertThat(end.get("changes")).isEmpty();
+        assertThat(end.get("next").asLong()).isEqualTo(second.get("next").asLong());
+    }
+
+    @Test
+    void rejectsInvalidPositions() throws Exception {
+        read(get("/api/users/changes").param("after", "-1")).andExpect(status().isBadRequest());
+        read(get("/api/users/changes").param("limit", "0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void requiresAuthentication() throws Exception {
+        mockMvc.perform(get("/api/users/changes")).andExpect(status().isUnauthorized());
+    }
+
+    // Reads the feed from `after` until the entry of this user and type shows up
+    private JsonNode awaitChange(long after, long userId, String type) throws Exception {
+        long deadline = System.currentTimeMillis() + PUBLISH_TIMEOUT_MILLIS;
+        List<JsonNode> seen = new ArrayList<>();
+        long position = after;
+        while (System.currentTimeMillis() < deadline) {
+            JsonNode page = changes(position, 500);
+            for (JsonNode change : page.get("changes")) {
+                seen.add(change);
+                if (change.get("userId").asLong() == userId && change.get("type").asText().equals(type)) {
+                    return change;
+                }
+            }
+            position = page.get("next").asLong();
+            if (page.get("changes").isEmpty()) {
+                Thread.sleep(50);
+            }
+        }
+        return fail("No " + type + " change for user " + userId + " after " + after + " in " + seen);
+    }
+
+    private JsonNode changes(long after, int limit) throws Exception {
+        return json(read(get("/api/users/changes").param("after", String.valueOf(after))
+                        .param("limit", String.valueOf(limit)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    // The endpoint answers through a DeferredResult, so the response comes from the async dispatch
+    private ResultActions read(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder.with(user("tester")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+}
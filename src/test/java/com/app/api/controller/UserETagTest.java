@@ -0,0 +1,108 @@
+package com.app.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.app.api.ApiTestSupport;
+
+// Conditional requests on /api/users/{id}: If-None-Match answers 304, and an If-Match that no
+// longer names the current version makes PUT and PATCH fail with 412 without writing
+class UserETagTest extends ApiTestSupport {
+
+    @Test
+    void answersNotModifiedWhileTheUserIsUnchanged() throws Exception {
+        long id = register(uniqueUsername("etag"));
+        String etag = etagOf(id);
+
+        mockMvc.perform(get("/api/users/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        // Weak comparison: the W/ prefix is ignored
+        mockMvc.perform(get("/api/users/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        patchName(id, "Renamed User", null);
+        mockMvc.perform(get("/api/users/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectsAStaleIfMatch() throws Exception {
+        String username = uniqueUsername("etag");
+        long id = register(username);
+        String stale = etagOf(id);
+        String current = patchName(id, "First Change", stale);
+        assertThat(current).isNotEqualTo(stale);
+
+        mockMvc.perform(patch("/api/users/{id}", id).header(HttpHeaders.IF_MATCH, stale)
+                        .contentType("application/merge-patch+json").content("{\"name\":\"Lost Update\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/users/{id}", id).header(HttpHeaders.IF_MATCH, stale)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Lost Update", username, emailOf(username), PASSWORD)))
+                .andExpect(status().isPreconditionFailed());
+        // A weak tag never matches If-Match
+        mockMvc.perform(patch("/api/users/{id}", id).header(HttpHeaders.IF_MATCH, "W/" + current)
+                        .contentType("application/merge-patch+json").content("{\"name\":\"Lost Update\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        // The rejected writes changed nothing, so the current tag still matches
+        assertThat(etagOf(id)).isEqualTo(current);
+        mockMvc.perform(put("/api/users/{id}", id).header(HttpHeaders.IF_MATCH, current)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Second Change", username, emailOf(username), PASSWORD)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void chainsIfMatchWritesOnTheReturnedETag() throws Exception {
+        String username = uniqueUsername("etag");
+        long id = register(username);
+        String body = userJson("Test User", username, emailOf(username), PASSWORD);
+
+        // The fields stay the same, yet each write moves the version on and answers with it
+        String first = putUser(id, body, etagOf(id));
+        String second = putUser(id, body, first);
+        assertThat(second).isNotEqualTo(first);
+        assertThat(etagOf(id)).isEqualTo(second);
+        String third = patchName(id, "Test User", second);
+        assertThat(etagOf(id)).isEqualTo(third);
+        putUser(id, body, third);
+    }
+
+    private String etagOf(long id) throws Exception {
+        String etag = mockMvc.perform(get("/api/users/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull().doesNotStartWith("W/");
+        return etag;
+    }
+
+    // Returns the new ETag
+    private String putUser(long id, String body, String ifMatch) throws Exception {
+        return mockMvc.perform(put("/api/users/{id}", id).header(HttpHeaders.IF_MATCH, ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    // Returns the new ETag
+    private String patchName(long id, String name, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = patch("/api/users/{id}", id).contentType("application/merge-patch+json")
+                .content("{\"name\":\"" + name + "\"}");
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,92 @@
+package com.app.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.app.api.ApiTestSupport;
+
+// PATCH /api/users/{id} (JSON Merge Patch): only the fields in the body change, and a patch that
+// changes nothing does not write
+class UserPatchTest extends ApiTestSupport {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
+    @Test
+    void changesOnlyTheSuppliedFields() throws Exception {
+        String username = uniqueUsername("patch");
+        long id = register(username);
+
+        patchUser(id, "{\"name\":\"Patched Name\"}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Patched Name"))
+                .andExpect(jsonPath("$.username").value(username))
+                .andExpect(jsonPath("$.email").value(emailOf(username)))
+                .andExpect(jsonPath("$.password").doesNotExist());
+        // The password was not sent, so it still works
+        login(username, PASSWORD).andExpect(status().isOk());
+
+        String renamed = uniqueUsername("patch");
+        patchUser(id, "{\"username\":\"" + renamed + "\",\"password\":\"Changed@2\"}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Patched Name"))
+                .andExpect(jsonPath("$.username").value(renamed));
+        login(renamed, PASSWORD).andExpect(status().isUnauthorized());
+        login(renamed, "Changed@2").andExpect(status().isOk());
+    }
+
+    @Test
+    void doesNotWriteWhenNothingChanges() throws Exception {
+        String username = uniqueUsername("patch");
+        long id = register(username);
+        String etag = mockMvc.perform(get("/api/users/{id}", id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        patchUser(id, "{\"username\":\"" + username + "\",\"email\":\"" + emailOf(username) + "\"}")
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        patchUser(id, "{}").andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void rejectsInvalidPatches() throws Exception {
+        long id = register(uniqueUsername("patch"));
+
+        patchUser(id, "{\"status\":\"DELETED\"}").andExpect(status().isBadRequest());
+        patchUser(id, "{\"name\":null}").andExpect(status().isBadRequest());
+        patchUser(id, "{\"username\":\"Not Valid\"}").andExpect(status().isBadRequest());
+        patchUser(id, "{\"password\":\"weak\"}").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectsATakenUsernameOrEmail() throws Exception {
+        String taken = uniqueUsername("patch");
+        register(taken);
+        long id = register(uniqueUsername("patch"));
+
+        patchUser(id, "{\"username\":\"" + taken + "\"}")
+                .andExpect(status().isConflict());
+        String body = patchUser(id, "{\"email\":\"" + emailOf(taken) + "\"}")
+                .andExpect(status().isConflict())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body).isEqualTo("Email already exists.");
+    }
+
+    private ResultActions patchUser(long id, String body) throws Exception {
+        return mockMvc.perform(patch("/api/users/{id}", id).contentType(MERGE_PATCH).content(body));
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return mockMvc.perform(post("/api/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+    }
+}
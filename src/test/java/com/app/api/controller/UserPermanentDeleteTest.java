@@ -0,0 +1,64 @@
+package com.app.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.app.api.ApiTestSupport;
+import com.app.api.model.User;
+import com.app.api.security.TokenService;
+
+// DELETE /api/users/{id}/permanent: authenticated only, and only a user that was actually
+// deleted has its tokens revoked
+class UserPermanentDeleteTest extends ApiTestSupport {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Test
+    void removesTheUserAndRevokesItsTokens() throws Exception {
+        long id = register(uniqueUsername("purge"));
+        String token = tokenService.issueAccessToken(userWithId(id));
+
+        mockMvc.perform(delete("/api/users/{id}/permanent", id).with(user("tester"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/{id}", id)).andExpect(status().isNotFound());
+        assertThat(tokenService.verify(token, TokenService.ACCESS)).isEmpty();
+    }
+
+    @Test
+    void leavesTokensAndTheAvailabilityIndexAloneForAnUnknownId() throws Exception {
+        long unknownId = Long.MAX_VALUE - 7;
+        String token = tokenService.issueAccessToken(userWithId(unknownId));
+        long staleKeys = staleKeys();
+
+        mockMvc.perform(delete("/api/users/{id}/permanent", unknownId).with(user("tester"))).andExpect(status().isOk());
+        assertThat(tokenService.verify(token, TokenService.ACCESS)).isPresent();
+        assertThat(staleKeys()).isEqualTo(staleKeys);
+    }
+
+    @Test
+    void requiresAuthentication() throws Exception {
+        long id = register(uniqueUsername("purge"));
+
+        mockMvc.perform(delete("/api/users/{id}/permanent", id)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/users/{id}", id)).andExpect(status().isOk());
+    }
+
+    private long staleKeys() throws Exception {
+        return json(mockMvc.perform(get("/api/users/availability/stats").with(user("tester")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("staleKeys").asLong();
+    }
+
+    private static User userWithId(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("purge");
+        return user;
+    }
+}
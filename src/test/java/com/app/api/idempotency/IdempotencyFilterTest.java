@@ -0,0 +1,113 @@
+package com.app.api.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.app.api.ApiTestSupport;
+
+// Idempotency-Key on writes: a retry gets the stored first response without running again,
+// a key reused for a different request gets 422
+class IdempotencyFilterTest extends ApiTestSupport {
+
+    @Test
+    void replaysTheFirstResponse() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String username = uniqueUsername("retry");
+        String body = userJson("Retry User", username, emailOf(username), PASSWORD);
+
+        MvcResult first = register(key, body)
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn();
+        // Without the key, the same registration would be a duplicate (409)
+        MvcResult retry = register(key, body)
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn();
+        assertThat(retry.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+
+        register(UUID.randomUUID().toString(), body).andExpect(status().isConflict());
+    }
+
+    @Test
+    void keepsClientErrorsButNotTheKeyForAnotherRequest() throws Exception {
+        String taken = uniqueUsername("retry");
+        register(taken);
+        String key = UUID.randomUUID().toString();
+        String duplicate = userJson("Retry User", taken, emailOf(taken), PASSWORD);
+
+        register(key, duplicate).andExpect(status().isConflict());
+        register(key, duplicate).andExpect(status().isConflict())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+
+        String other = uniqueUsername("retry");
+        register(key, userJson("Retry User", other, emailOf(other), PASSWORD))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void scopesKeysToTheCaller() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String deactivate = "{\"ids\":[" + register(uniqueUsername("retry")) + "]}";
+
+        mockMvc.perform(post("/api/users/bulk/deactivate").with(user("alice")).header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content(deactivate))
+                .andExpect(status().isOk());
+        // Another caller's request under the same key is its own, not a mismatch or a replay
+        mockMvc.perform(post("/api/users/bulk/deactivate").with(user("bob")).header(IdempotencyFilter.HEADER, key)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[0]}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void scopesAnonymousKeysToTheClientAddress() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String first = uniqueUsername("retry");
+        String body = userJson("Retry User", first, emailOf(first), PASSWORD);
+        register(key, body, "10.0.0.3").andExpect(status().isCreated());
+
+        // The same key from another client runs on its own: no replay of the first client's response
+        register(key, body, "10.0.0.4").andExpect(status().isConflict())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        String second = uniqueUsername("retry");
+        register(key, userJson("Retry User", second, emailOf(second), PASSWORD), "10.0.0.5")
+                .andExpect(status().isCreated());
+        register(key, body, "10.0.0.3").andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+    }
+
+    @Test
+    void rejectsInvalidKeysAndOversizedBodies() throws Exception {
+        String username = uniqueUsername("retry");
+        String body = userJson("Retry User", username, emailOf(username), PASSWORD);
+
+        register(" ", body).andExpect(status().isBadRequest());
+        register("k".repeat(256), body).andExpect(status().isBadRequest());
+        register(UUID.randomUUID().toString(), " ".repeat(1024 * 1024) + body).andExpect(status().isPayloadTooLarge());
+    }
+
+    private ResultActions register(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/register").header(IdempotencyFilter.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private ResultActions register(String key, String body, String clientAddress) throws Exception {
+        return mockMvc.perform(post("/api/register").header(IdempotencyFilter.HEADER, key)
+                .with(request -> {
+                    request.setRemoteAddr(clientAddress);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+}
@@ -0,0 +1,313 @@
+package com.app.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.api.model.User;
+import com.app.api.model.UserStatus;
+
+// Runs every repository query against the migrated schema, replays the SQL Hibernate sent
+// under EXPLAIN and fails if a query that should use an index scans the whole table.
+// Uses its own H2 database in MySQL mode; to check a real MySQL instead:
+//   mvn test -Dtest=QueryPlanTest -Dqueryplan.url=jdbc:mysql://... -Dqueryplan.driver=com.mysql.cj.jdbc.Driver
+//       -Dqueryplan.username=... -Dqueryplan.password=...
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=${queryplan.url:jdbc:h2:mem:queryplan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1}",
+        "spring.datasource.driver-class-name=${queryplan.driver:org.h2.Driver}",
+        "spring.datasource.username=${queryplan.username:sa}",
+        "spring.datasource.password=${queryplan.password:}"})
+class QueryPlanTest {
+
+    private static final int SEED_USERS = 2000;
+
+    // H2 plan comment naming an index with no condition, e.g. /* public.users.tableScan */ or /* public.PRIMARY_KEY_6 */
+    private static final Pattern H2_UNCONDITIONAL_SCAN = Pattern.compile("/\\* [\\w.\"]+ \\*/");
+
+    // Repositories whose declared queries must all have an entry below
+    private static final List<Class<?>> REPOSITORIES = List.of(UserRepository.class,
+            UserArchiveRepository.class, UserChangeRepository.class, UserStatisticsRepository.class,
+            IdempotencyRecordRepository.class);
+
+    // Queries that read every row by design
+    private static final Map<String, String> FULL_SCAN_ALLOWED = Map.of(
+            "streamAllKeys", "reads every user to build the availability index",
+            "streamAllForExport", "unfiltered export reads every user in id order",
+            "streamSearchRows", "reads every active user to build the search index",
+            "searchByPattern", "infix LIKE fallback while the search index builds",
+            "findByDeletedAtIsNull", "unused; lists every non-deleted user",
+            "findAllByDeletedAtIsNull", "unused; lists every non-deleted user",
+            "findSlowestChangeConsumer", "one row per change feed consumer",
+            "countGroupedByStatus", "periodic reconciliation of the user statistics");
+
+    // Native queries using MySQL-only syntax, skipped on H2
+    private static final Set<String> MYSQL_ONLY = Set.of("searchFullText");
+
+    // Wraps the application's data source so the statements of each query can be recorded
+    @TestConfiguration
+    static class Recording {
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserArchiveRepository archiveRepository;
+
+    @Autowired
+    private UserChangeRepository changeRepository;
+
+    @Autowired
+    private UserStatisticsRepository statisticsRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void usesAnIndexForEveryQuery() throws Exception {
+        RecordingDataSource dataSource = (RecordingDataSource) this.dataSource;
+
+        // Realistic statistics: mostly active users, some inactive and deleted
+        List<User> users = seed();
+        List<Long> deleted = users.stream().map(User::getId).filter(id -> id % 10 == 0).toList();
+        List<Long> inactive = users.stream().map(User::getId).filter(id -> id % 10 == 1).toList();
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.updateStatusByIdIn(deleted, UserStatus.DELETED, now, now);
+            userRepository.updateStatusByIdIn(inactive, UserStatus.INACTIVE, null, now);
+        });
+        boolean mySql;
+        try (Connection connection = dataSource.getTargetDataSource().getConnection()) {
+            mySql = isMySql(connection);
+            connection.createStatement().execute(mySql ? "ANALYZE TABLE users" : "ANALYZE");
+        }
+
+        User user = users.get(SEED_USERS / 2);
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findByUsernameAndStatus", () -> userRepository.findByUsernameAndStatus(user.getUsername(), UserStatus.ACTIVE));
+        queries.put("findByEmailAndStatus", () -> userRepository.findByEmailAndStatus(user.getEmail(), UserStatus.ACTIVE));
+        queries.put("findAllByStatus", () -> userRepository.findAllByStatus(UserStatus.INACTIVE));
+        queries.put("findByIdAndStatus", () -> userRepository.findByIdAndStatus(user.getId(), UserStatus.ACTIVE));
+        queries.put("findViewByIdAndStatus", () -> userRepository.findViewByIdAndStatus(user.getId(), UserStatus.ACTIVE));
+        queries.put("findViewsByStatusAfterId",
+                () -> userRepository.findViewsByStatusAfterId(UserStatus.ACTIVE, user.getId(), Limit.of(51)));
+        queries.put("findUpdatedAtByIdAndStatus", () -> userRepository.findUpdatedAtByIdAndStatus(user.getId(), UserStatus.ACTIVE));
+        queries.put("findVersionsByStatusAfterId",
+                () -> userRepository.findVersionsByStatusAfterId(UserStatus.ACTIVE, user.getId(), Limit.of(51)));
+        queries.put("streamAllForExport", () -> {
+            try (Stream<?> rows = userRepository.streamAllForExport()) {
+                rows.findFirst();
+            }
+        });
+        queries.put("streamForExportByStatus", () -> {
+            try (Stream<?> rows = userRepository.streamForExportByStatus(UserStatus.INACTIVE)) {
+                rows.findFirst();
+            }
+        });
+        queries.put("streamForExportUpdatedSince", () -> {
+            try (Stream<?> rows = userRepository.streamForExportUpdatedSince(now)) {
+                rows.findFirst();
+            }
+        });
+        queries.put("streamForExportByStatusUpdatedSince", () -> {
+            try (Stream<?> rows = userRepository.streamForExportByStatusUpdatedSince(UserStatus.ACTIVE, now)) {
+                rows.findFirst();
+            }
+        });
+        queries.put("findByDeletedAtIsNull", userRepository::findByDeletedAtIsNull);
+        queries.put("findByIdAndDeletedAtIsNull", () -> userRepository.findByIdAndDeletedAtIsNull(user.getId()));
+        queries.put("findAllByDeletedAtIsNull", userRepository::findAllByDeletedAtIsNull);
+        queries.put("findByUsername", () -> userRepository.findByUsername(user.getUsername()));
+        queries.put("findByEmail", () -> userRepository.findByEmail(user.getEmail()));
+        queries.put("existsByUsername", () -> userRepository.existsByUsername(user.getUsername()));
+        queries.put("existsByEmail", () -> userRepository.existsByEmail(user.getEmail()));
+        queries.put("streamAllKeys", () -> {
+            try (Stream<?> rows = userRepository.streamAllKeys()) {
+                rows.findFirst();
+            }
+        });
+        queries.put("streamSearchRows", () -> {
+            try (Stream<?> rows = userRepository.streamSearchRows(UserStatus.ACTIVE)) {
+                rows.findFirst();
+            }
+        });
+        queries.put("searchFullText", () -> userRepository.searchFullText("\"user_1\"", 10));
+        queries.put("searchByPattern", () -> userRepository.searchByPattern(UserStatus.ACTIVE, "%ser_1%", Limit.of(10)));
+        queries.put("findKeysByUsernameOrEmail", () -> userRepository.findKeysByUsernameOrEmail(user.getUsername(), "new@example.com"));
+        queries.put("findKeysByUsernameInOrEmailIn", () -> userRepository.findKeysByUsernameInOrEmailIn(
+                List.of(user.getUsername(), "new_user"), List.of(user.getEmail(), "new@example.com")));
+        queries.put("updateStatusByIdIn",
+                () -> userRepository.updateStatusByIdIn(List.of(user.getId(), user.getId() + 1), UserStatus.INACTIVE, null, now));
+        queries.put("advanceVersion", () -> userRepository.advanceVersion(user.getId(), now, now));
+        queries.put("lockArchivableIds", () -> archiveRepository.lockArchivableIds(now, 500));
+        queries.put("copyToArchive", () -> archiveRepository.copyToArchive(deleted.subList(0, 2), now));
+        queries.put("deleteArchived", () -> archiveRepository.deleteArchived(deleted.subList(0, 2)));
+        queries.put("findOldestDeletedAtBefore", () -> archiveRepository.findOldestDeletedAtBefore(UserStatus.DELETED, now));
+        queries.put("findIdsByStatusAfterId", () -> userRepository.findIdsByStatusAfterId(UserStatus.INACTIVE, user.getId(), Limit.of(1000)));
+        queries.put("findIdsUpdatedBeforeAfterId",
+                () -> userRepository.findIdsUpdatedBeforeAfterId(now.minusDays(1), user.getId(), Limit.of(1000)));
+        queries.put("findIdsByStatusUpdatedBeforeAfterId",
+                () -> userRepository.findIdsByStatusUpdatedBeforeAfterId(UserStatus.INACTIVE, now, user.getId(), Limit.of(1000)));
+        queries.put("insertChanges", () -> changeRepository.insertChanges(List.of(user.getId()), "UPDATED", now));
+        queries.put("insertStatusChanges",
+                () -> changeRepository.insertStatusChanges(inactive.subList(0, 2), "UPDATED", UserStatus.ACTIVE.name(), now));
+        queries.put("insertRemovedChange", () -> changeRepository.insertRemovedChange(user.getId(), "PURGED", now));
+        queries.put("insertArchivedChanges", () -> changeRepository.insertArchivedChanges(deleted.subList(0, 2), "PURGED", now));
+        queries.put("findUnpublishedChanges", () -> changeRepository.findUnpublishedChanges(500));
+        queries.put("lockLastChangePosition", changeRepository::lockLastChangePosition);
+        queries.put("publishChanges", () -> changeRepository.publishChanges(List.of(1L, 2L), 0));
+        queries.put("updateLastChangePosition", () -> changeRepository.updateLastChangePosition(changeRepository.lockLastChangePosition()));
+        queries.put("findChangesAfter", () -> changeRepository.findChangesAfter(0, 500));
+        queries.put("findLatestChangeSequence", changeRepository::findLatestChangeSequence);
+        queries.put("deleteChanges", () -> changeRepository.deleteChanges(0, 1000));
+        queries.put("findChangesCompactedUpTo", changeRepository::findChangesCompactedUpTo);
+        queries.put("advanceChangesCompactedUpTo", () -> changeRepository.advanceChangesCompactedUpTo(1000));
+        queries.put("advanceChangeConsumer", () -> changeRepository.advanceChangeConsumer("reporting", 1000, now));
+        queries.put("insertChangeConsumer", () -> changeRepository.insertChangeConsumer("reporting", 1000, now));
+        queries.put("findSlowestChangeConsumer", () -> changeRepository.findSlowestChangeConsumer(now.minusDays(7)));
+        queries.put("countGroupedByStatus", statisticsRepository::countGroupedByStatus);
+        queries.put("countRegistrationsByDaySince", () -> statisticsRepository.countRegistrationsByDaySince(now.minusDays(90)));
+        queries.put("lockStatusesByIdIn", () -> statisticsRepository.lockStatusesByIdIn(inactive.subList(0, 2)));
+        String keyHash = "0".repeat(64);
+        queries.put("findById", () -> recordRepository.findById(keyHash));
+        queries.put("insertClaim", () -> recordRepository.insertClaim(keyHash, keyHash, now, now.plusDays(1)));
+        queries.put("complete",
+                () -> recordRepository.complete(keyHash, 201, "application/json", null, new byte[16]));
+        queries.put("takeOver", () -> recordRepository.takeOver(keyHash, keyHash, now, now.minusMinutes(2)));
+        queries.put("deleteClaim", () -> recordRepository.deleteClaim(keyHash));
+        queries.put("deleteExpired", () -> recordRepository.deleteExpired(keyHash, now));
+        queries.put("deleteAllExpired", () -> recordRepository.deleteAllExpired(now));
+
+        List<String> problems = new ArrayList<>();
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Method method : repository.getDeclaredMethods()) {
+                declared.add(method.getName());
+            }
+        }
+        declared.removeAll(queries.keySet());
+        for (String missing : declared) {
+            problems.add(missing + " has no entry in QueryPlanTest");
+        }
+
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            if (!mySql && MYSQL_ONLY.contains(query.getKey())) {
+                continue;
+            }
+            dataSource.startRecording();
+            List<RecordingDataSource.RecordedStatement> statements;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    query.getValue().run();
+                    status.setRollbackOnly();
+                });
+            } finally {
+                statements = dataSource.stopRecording();
+            }
+            for (RecordingDataSource.RecordedStatement statement : statements) {
+                String plan = explain(dataSource.getTargetDataSource(), statement);
+                if (isFullScan(plan) && !FULL_SCAN_ALLOWED.containsKey(query.getKey())) {
+                    problems.add(query.getKey() + " scans: " + statement.sql() + " -> " + plan);
+                }
+            }
+        }
+        assertThat(problems).isEmpty();
+    }
+
+    // Insert users in JDBC batches with one shared hash, so seeding doesn't pay BCrypt per row
+    private List<User> seed() {
+        String hash = passwordEncoder.encode("Secret@1");
+        List<User> users = new ArrayList<>(SEED_USERS);
+        for (int n = 0; n < SEED_USERS; n++) {
+            User user = new User();
+            user.setName("Plan User " + n);
+            user.setUsername("plan_user_" + n);
+            user.setEmail("plan.user" + n + "@example.com");
+            user.setPassword(hash);
+            users.add(user);
+        }
+        transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+        return users;
+    }
+
+    private static String explain(DataSource dataSource, RecordingDataSource.RecordedStatement statement) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = statement.replay(connection, "EXPLAIN ");
+             ResultSet rows = explain.executeQuery()) {
+            ResultSetMetaData meta = rows.getMetaData();
+            List<String> lines = new ArrayList<>();
+            while (rows.next()) {
+                if (isMySql(connection)) {
+                    // One row per table access: keep the access type and the index chosen
+                    lines.add("type=" + rows.getString("type") + " key=" + rows.getString("key")
+                            + " extra=" + rows.getString("Extra"));
+                } else {
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        lines.add(rows.getString(i).replaceAll("\\s+", " "));
+                    }
+                }
+            }
+            return String.join(" | ", lines);
+        }
+    }
+
+    // MySQL: access type ALL (table scan) or index (full index scan); H2: an access path without a
+    // condition, unless the aggregate is answered from the index (MIN/MAX, "direct lookup")
+    private static boolean isFullScan(String plan) {
+        return plan.contains("type=ALL") || plan.contains("type=index ")
+                || H2_UNCONDITIONAL_SCAN.matcher(plan).find() && !plan.contains("/* direct lookup */");
+    }
+
+    private static boolean isMySql(Connection connection) throws Exception {
+        return connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
+    }
+}
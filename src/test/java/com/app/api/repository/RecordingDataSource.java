@@ -0,0 +1,86 @@
+package com.app.api.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Records the SQL and parameter bindings of prepared statements run on the current thread
+// while recording is on, so they can be replayed under EXPLAIN
+class RecordingDataSource extends DelegatingDataSource {
+
+    // Parameter setters called on a statement (setLong, setString, ...), in call order
+    record Binding(Method setter, Object[] args) {
+    }
+
+    record RecordedStatement(String sql, List<Binding> bindings) {
+
+        // Prepare `prefix + sql` on the given connection with the same parameters bound
+        PreparedStatement replay(Connection connection, String prefix) throws Exception {
+            PreparedStatement statement = connection.prepareStatement(prefix + sql);
+            for (Binding binding : bindings) {
+                binding.setter().invoke(statement, binding.args());
+            }
+            return statement;
+        }
+    }
+
+    private final ThreadLocal<List<RecordedStatement>> recording = new ThreadLocal<>();
+
+    RecordingDataSource(DataSource target) {
+        super(target);
+    }
+
+    void startRecording() {
+        recording.set(new ArrayList<>());
+    }
+
+    List<RecordedStatement> stopRecording() {
+        List<RecordedStatement> statements = recording.get();
+        recording.remove();
+        return statements;
+    }
+
+    @Override
+    public Connection getConnection() throws java.sql.SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    List<RecordedStatement> statements = recording.get();
+                    if (statements != null && method.getName().equals("prepareStatement")) {
+                        RecordedStatement recorded = new RecordedStatement((String) args[0], new ArrayList<>());
+                        statements.add(recorded);
+                        return recordBindings((PreparedStatement) result, recorded);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement recordBindings(PreparedStatement statement, RecordedStatement recorded) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                recorded.bindings().add(new Binding(method, args));
+            }
+            return invoke(statement, method, args);
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(RecordingDataSource.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
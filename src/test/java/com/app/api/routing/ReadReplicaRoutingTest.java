@@ -0,0 +1,105 @@
+package com.app.api.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.app.api.ApiTestSupport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// The local-replicas setup, except that the replica is a database of its own which only gets
+// the primary's rows when the test copies them over, so it lags behind every later write
+@ActiveProfiles("local-replicas")
+@TestPropertySource(properties = "app.datasource.replica.urls=" + ReadReplicaRoutingTest.REPLICA_URL)
+class ReadReplicaRoutingTest extends ApiTestSupport {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:lagging-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void keepsTheWriterOnThePrimaryWhileOthersReadTheLaggingReplica() throws Exception {
+        String username = uniqueUsername("replica");
+        long id = register(username);
+        catchUpReplica();
+
+        // Changed on the primary only
+        mockMvc.perform(put("/api/users/{id}", id).with(user("writer"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Test User", username, emailOf(username), "Changed@2")))
+                .andExpect(status().isOk());
+
+        // Another client logs in on the replica, which still has the old password
+        double replicaReads = connections("replica");
+        login(username, PASSWORD, client("10.0.0.2")).andExpect(status().isOk());
+        assertThat(connections("replica")).isGreaterThan(replicaReads);
+
+        // The writer reads its own write; the other client's replica read must not have cached the old row
+        login(username, "Changed@2", user("writer")).andExpect(status().isOk());
+        login(username, PASSWORD, user("writer")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void sendsWritesToThePrimary() throws Exception {
+        double primaryConnections = connections("primary");
+        register(uniqueUsername("replica"));
+        assertThat(connections("primary")).isGreaterThan(primaryConnections);
+    }
+
+    private ResultActions login(String username, String password, RequestPostProcessor caller) throws Exception {
+        return mockMvc.perform(post("/api/login").with(caller).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"));
+    }
+
+    private static RequestPostProcessor client(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    // Replaces the replica's contents with a copy of the primary as it is now
+    private void catchUpReplica() throws Exception {
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("script to '" + script + "'");
+            }
+            try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("drop all objects");
+                statement.execute("runscript from '" + script + "'");
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("datasource.routing.connections").tag("target", target).counter().count();
+    }
+}
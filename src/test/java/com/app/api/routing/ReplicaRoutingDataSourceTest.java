@@ -0,0 +1,112 @@
+package com.app.api.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Which data source a connection comes from: replicas round robin for reads, the primary for
+// writes and pinned callers, and the primary while no replica is healthy
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource first = mock(DataSource.class);
+    private final DataSource second = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstConnection = mock(Connection.class);
+    private final Connection secondConnection = mock(Connection.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+        when(firstConnection.isValid(2)).thenReturn(true);
+        when(secondConnection.isValid(2)).thenReturn(true);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", first);
+        replicas.put("replica-2", second);
+        routing = new ReplicaRoutingDataSource(primary, replicas, registry);
+        routing.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    void spreadsReadsOverTheReplicas() throws SQLException {
+        RoutingContext.setPrimaryRequired(false);
+
+        assertThat(routing.getConnection()).isSameAs(firstConnection);
+        assertThat(routing.getConnection()).isSameAs(secondConnection);
+        assertThat(routing.getConnection()).isSameAs(firstConnection);
+        assertThat(connections("replica")).isEqualTo(3);
+    }
+
+    @Test
+    void keepsWritesPinnedCallersAndJobsOnThePrimary() throws SQLException {
+        RoutingContext.setPrimaryRequired(true);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+
+        // Outside a request and outside a read-only transaction
+        RoutingContext.clear();
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(connections("replica")).isZero();
+    }
+
+    @Test
+    void skipsAFailedReplicaUntilItsHealthCheckPasses() throws SQLException {
+        RoutingContext.setPrimaryRequired(false);
+        when(first.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        // The failed attempt falls back to the primary, later reads only try the healthy replica
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routing.getConnection()).isSameAs(secondConnection);
+        assertThat(routing.getConnection()).isSameAs(secondConnection);
+        verify(first, times(1)).getConnection();
+        assertThat(registry.get("datasource.routing.replica.failures").counter().count()).isEqualTo(1);
+        assertThat(registry.get("datasource.routing.replicas.healthy").gauge().value()).isEqualTo(1);
+
+        doReturn(firstConnection).when(first).getConnection();
+        routing.checkReplicas();
+        assertThat(registry.get("datasource.routing.replicas.healthy").gauge().value()).isEqualTo(2);
+        assertThat(routing.getConnection()).isIn(firstConnection, secondConnection);
+        assertThat(routing.getConnection()).isIn(firstConnection, secondConnection);
+        verify(first, times(3)).getConnection();
+    }
+
+    @Test
+    void readsFromThePrimaryWhileNoReplicaIsHealthy() throws SQLException {
+        RoutingContext.setPrimaryRequired(false);
+        when(firstConnection.isValid(2)).thenReturn(false);
+        when(second.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routing.checkReplicas();
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(registry.get("datasource.routing.replicas.healthy").gauge().value()).isZero();
+        assertThat(connections("primary")).isEqualTo(1);
+    }
+
+    private double connections(String target) {
+        return registry.get("datasource.routing.connections").tag("target", target).counter().count();
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.api.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// The trigram snapshot on its own: ranking, short queries, posting list encoding, gram table
+// growth and the early stop of a search
+class SearchSnapshotTest {
+
+    private static final int ENOUGH = 100;
+
+    @Test
+    void ranksWordPrefixMatchesBeforeInfixMatches() {
+        SearchSnapshot snapshot = new SearchSnapshot.Builder()
+                .add(1, "Joanne Ray", "joanne_r", "joanne@example.com")
+                .add(2, "Ann Lee", "ann_lee", "ann.lee@example.com")
+                .add(3, "Mark Doe", "mdoe", "mark.anneli@example.com")
+                .add(4, "Bob Roe", "broe", "bob@example.com")
+                .build();
+
+        List<SearchSnapshot.Hit> hits = snapshot.search("ann", ENOUGH, ENOUGH, id -> false);
+
+        // "ann" starts a word of 2 and 3 (after '.'), and is only inside "joanne" for 1
+        assertThat(hits).extracting(SearchSnapshot.Hit::id).containsExactly(2L, 3L, 1L);
+        assertThat(hits).extracting(SearchSnapshot.Hit::prefix).containsExactly(true, true, false);
+        assertThat(hits.get(0)).isEqualTo(new SearchSnapshot.Hit(2, "Ann Lee", "ann_lee", "ann.lee@example.com", true));
+    }
+
+    @Test
+    void answersOneAndTwoCharacterQueriesFromWordPrefixes() {
+        SearchSnapshot snapshot = new SearchSnapshot.Builder()
+                .add(1, "Jo Park", "jpark", "jo@example.com")
+                .add(2, "Maja Jones", "mjones", "maja@example.com")
+                .add(3, "Raj Kumar", "rkumar", "raj@example.com")
+                .build();
+
+        // Short queries only match the start of a word: "raj" contains a j but no word starts with one
+        assertThat(ids(snapshot.search("j", ENOUGH, ENOUGH, id -> false))).containsExactly(1L, 2L);
+        assertThat(ids(snapshot.search("jo", ENOUGH, ENOUGH, id -> false))).containsExactly(1L, 2L);
+        assertThat(ids(snapshot.search("ku", ENOUGH, ENOUGH, id -> false))).containsExactly(3L);
+        assertThat(snapshot.search("q", ENOUGH, ENOUGH, id -> false)).isEmpty();
+    }
+
+    @Test
+    void decodesGapsThatNeedSeveralVarintBytes() {
+        // Gaps of 1, 127, 128 (two bytes) and 20000 (three bytes) between the documents holding "zebra"
+        int[] zebras = {0, 1, 128, 256, 20_256};
+        SearchSnapshot.Builder builder = new SearchSnapshot.Builder();
+        int next = 0;
+        for (int doc = 0; doc <= zebras[zebras.length - 1]; doc++) {
+            boolean zebra = next < zebras.length && zebras[next] == doc;
+            if (zebra) {
+                next++;
+            }
+            builder.add(1000 + doc, zebra ? "Zebra Keeper" : "Plain User", "user" + doc, "user" + doc + "@example.com");
+        }
+        SearchSnapshot snapshot = builder.build();
+
+        assertThat(ids(snapshot.search("zebra", ENOUGH, Integer.MAX_VALUE, id -> false)))
+                .containsExactly(1000L, 1001L, 1128L, 1256L, 21_256L);
+        assertThat(ids(snapshot.search("user20256", ENOUGH, Integer.MAX_VALUE, id -> false))).containsExactly(21_256L);
+    }
+
+    @Test
+    void keepsEveryGramWhenTheTableGrows() {
+        // 36^3 usernames give more distinct trigrams than the initial table holds at half load (32768)
+        String alphabet = "abcdefghijklmnopqrstuvwxyz0123456789";
+        SearchSnapshot.Builder builder = new SearchSnapshot.Builder();
+        long id = 0;
+        for (char a : alphabet.toCharArray()) {
+            for (char b : alphabet.toCharArray()) {
+                for (char c : alphabet.toCharArray()) {
+                    builder.add(++id, "Name", "" + a + b + c, "x@example.com");
+                }
+            }
+        }
+        SearchSnapshot snapshot = builder.build();
+
+        assertThat(snapshot.size()).isEqualTo(46_656);
+        assertThat(snapshot.gramCount()).isGreaterThan(46_656);
+        // Each username is the only one with its trigram; ids are 1 + the base-36 value
+        assertThat(ids(snapshot.search("aaa", ENOUGH, ENOUGH, doc -> false))).containsExactly(1L);
+        assertThat(ids(snapshot.search("q7z", ENOUGH, ENOUGH, doc -> false))).containsExactly(16L * 1296 + 33 * 36 + 25 + 1);
+        assertThat(ids(snapshot.search("999", ENOUGH, ENOUGH, doc -> false))).containsExactly(46_656L);
+    }
+
+    @Test
+    void stopsOnceEnoughMatchesAreFound() {
+        SearchSnapshot.Builder builder = new SearchSnapshot.Builder();
+        for (int doc = 1; doc <= 50; doc++) {
+            builder.add(doc, "Sam Smith", "sam" + doc, "sam" + doc + "@example.com");
+        }
+        SearchSnapshot snapshot = builder.build();
+
+        assertThat(ids(snapshot.search("sam", 3, ENOUGH, id -> false))).containsExactly(1L, 2L, 3L);
+        // At most maxCandidates documents are examined
+        assertThat(ids(snapshot.search("smith", ENOUGH, 4, id -> false))).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void leavesOutSkippedDocuments() {
+        SearchSnapshot snapshot = new SearchSnapshot.Builder()
+                .add(1, "Ann Lee", "ann_lee", "ann@example.com")
+                .add(2, "Ann Ray", "ann_ray", "ann.ray@example.com")
+                .build();
+
+        assertThat(ids(snapshot.search("ann", ENOUGH, ENOUGH, id -> id == 1))).containsExactly(2L);
+        // Skipped documents do not count towards maxCandidates
+        assertThat(ids(snapshot.search("ann", ENOUGH, 1, id -> id == 1))).containsExactly(2L);
+    }
+
+    private static List<Long> ids(List<SearchSnapshot.Hit> hits) {
+        return hits.stream().map(SearchSnapshot.Hit::id).toList();
+    }
+}
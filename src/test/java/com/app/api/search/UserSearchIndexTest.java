@@ -0,0 +1,129 @@
+package com.app.api.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.app.api.model.User;
+import com.app.api.model.UserSearchResult;
+import com.app.api.model.UserStatus;
+import com.app.api.repository.UserRepository;
+import com.app.api.repository.UserSearchRow;
+
+// How writes since the snapshot (pending entries) combine with it, and how a rebuild hands them over.
+// Writes are made outside a transaction, so they take effect at once; rebuilds run on the calling thread.
+class UserSearchIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final List<UserSearchRow> rows = new ArrayList<>();
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex(userRepository, mock(PlatformTransactionManager.class), Runnable::run,
+                "jdbc:h2:mem:search", 10_000, 20_000);
+        when(userRepository.streamSearchRows(UserStatus.ACTIVE)).thenAnswer(invocation -> rows.stream());
+        rows.add(row(1, "Alice Smith", "alice", "alice@example.com"));
+        rows.add(row(2, "Carol Jones", "carol", "carol@example.com"));
+        index.rebuildAsync();
+    }
+
+    @Test
+    void letsPendingWritesOverrideTheSnapshot() {
+        index.indexed(user(1, "Bob Smith", "bob", "bob@example.com"));
+
+        assertThat(search("alice")).isEmpty();
+        assertThat(search("bob")).containsExactly(1L);
+        // The snapshot's document for 1 is hidden, the pending one matches instead
+        assertThat(search("smith")).containsExactly(1L);
+        assertThat(index.search("smith", 10).get(0).getName()).isEqualTo("Bob Smith");
+    }
+
+    @Test
+    void hidesRemovedAndDeactivatedUsers() {
+        index.removed(List.of(2L));
+        User inactive = user(1, "Alice Smith", "alice", "alice@example.com");
+        inactive.setStatus(UserStatus.INACTIVE);
+        index.indexed(inactive);
+
+        assertThat(search("carol")).isEmpty();
+        assertThat(search("alice")).isEmpty();
+        assertThat(index.stats()).containsEntry("pending", 2);
+    }
+
+    @Test
+    void ranksPendingAndSnapshotMatchesTogether() {
+        index.indexed(user(3, "Dave Ice", "dice", "dave@example.com"));
+
+        // Word-prefix matches first, whichever side they come from: 3 starts a word, 1 has it inside "alice"
+        assertThat(search("ice")).containsExactly(3L, 1L);
+        assertThat(search("al")).containsExactly(1L);
+    }
+
+    @Test
+    void dropsPendingEntriesTheRebuildIncluded() {
+        index.indexed(user(3, "Dave Allison", "dallison", "dave@example.com"));
+        rows.add(row(3, "Dave Allison", "dallison", "dave@example.com"));
+
+        index.rebuildAsync();
+
+        assertThat(index.stats()).containsEntry("pending", 0).containsEntry("users", 3);
+        assertThat(search("dave")).containsExactly(3L);
+    }
+
+    @Test
+    void keepsAWriteThatCommitsWhileTheRebuildReads() {
+        // The write commits after the rebuild started reading, so the rows it reads miss it
+        when(userRepository.streamSearchRows(UserStatus.ACTIVE)).thenAnswer(invocation -> {
+            index.indexed(user(1, "Erin Smith", "erin", "erin@example.com"));
+            return rows.stream();
+        });
+
+        index.rebuildAsync();
+
+        assertThat(index.stats()).containsEntry("pending", 1);
+        assertThat(search("erin")).containsExactly(1L);
+        assertThat(search("alice")).isEmpty();
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, 10).stream().map(UserSearchResult::getId).toList();
+    }
+
+    private static User user(long id, String name, String username, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    private static UserSearchRow row(long id, String name, String username, String email) {
+        return new UserSearchRow() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getName() {
+                return name;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.app.api.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.app.api.exception.TooManyLoginAttemptsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Token buckets per client IP and per username: a burst, then one attempt per interval.
+// Limits are per minute (one attempt every 6 s) except where the refill is waited for.
+class LoginRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsABurstThenRejectsWithRetryAfter() {
+        // Username limit off: 10 attempts a minute per IP, bursts of 3
+        LoginRateLimiter limiter = limiter(Duration.ofMinutes(1), 10, 3, 0, 1);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            limiter.acquire("10.0.0.1", "user_" + attempt);
+        }
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "user_3"))
+                .isInstanceOfSatisfying(TooManyLoginAttemptsException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isBetween(5L, 6L));
+        assertThat(registry.get("login.limiter.rejected").tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void refillsOneAttemptPerInterval() throws InterruptedException {
+        // One attempt a second, no burst
+        LoginRateLimiter limiter = limiter(Duration.ofSeconds(1), 1, 1, 0, 1);
+        limiter.acquire("10.0.0.1", "ann");
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "ann")).isInstanceOf(TooManyLoginAttemptsException.class);
+
+        Thread.sleep(1_100);
+
+        assertThatCode(() -> limiter.acquire("10.0.0.1", "ann")).doesNotThrowAnyException();
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "ann")).isInstanceOf(TooManyLoginAttemptsException.class);
+    }
+
+    @Test
+    void keepsABucketPerIp() {
+        LoginRateLimiter limiter = limiter(Duration.ofMinutes(1), 10, 1, 0, 1);
+        limiter.acquire("10.0.0.1", "ann");
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "bob")).isInstanceOf(TooManyLoginAttemptsException.class);
+        assertThatCode(() -> limiter.acquire("10.0.0.2", "ann")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void keepsABucketPerUsernameWhateverTheIpOrCase() {
+        // IP limit off: 10 attempts a minute per username, bursts of 2
+        LoginRateLimiter limiter = limiter(Duration.ofMinutes(1), 0, 1, 10, 2);
+        limiter.acquire("10.0.0.1", "ann");
+        limiter.acquire("10.0.0.2", "Ann");
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.3", "ANN")).isInstanceOf(TooManyLoginAttemptsException.class);
+        assertThatCode(() -> limiter.acquire("10.0.0.3", "bob")).doesNotThrowAnyException();
+        assertThat(registry.get("login.limiter.rejected").tag("key", "username").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotSpendTheUsernameBucketOnARejectedIp() {
+        LoginRateLimiter limiter = limiter(Duration.ofMinutes(1), 10, 1, 10, 1);
+        limiter.acquire("10.0.0.1", "ann");
+
+        assertThatThrownBy(() -> limiter.acquire("10.0.0.1", "bob")).isInstanceOf(TooManyLoginAttemptsException.class);
+        assertThatCode(() -> limiter.acquire("10.0.0.2", "bob")).doesNotThrowAnyException();
+    }
+
+    private LoginRateLimiter limiter(Duration period, int ipAttempts, int ipBurst, int usernameAttempts,
+                                     int usernameBurst) {
+        return new LoginRateLimiter(registry,
+                ipAttempts, period, ipBurst, DataSize.ofMegabytes(1),
+                usernameAttempts, period, usernameBurst, DataSize.ofMegabytes(1));
+    }
+}
@@ -0,0 +1,107 @@
+package com.app.api.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.api.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// What verify() rejects: a token it did not sign, a token of the other type, an expired token,
+// and a token issued up to the millisecond its user was revoked
+class TokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final TokenService tokenService = tokenService(Duration.ofMinutes(15));
+
+    @Test
+    void acceptsATokenItIssued() {
+        String token = tokenService.issueAccessToken(user(7));
+
+        assertThat(tokenService.verify(token, TokenService.ACCESS)).hasValueSatisfying(claims -> {
+            assertThat(claims.userId()).isEqualTo(7);
+            assertThat(claims.username()).isEqualTo("user_7");
+            assertThat(claims.type()).isEqualTo(TokenService.ACCESS);
+        });
+    }
+
+    @Test
+    void rejectsATamperedToken() {
+        String token = tokenService.issueAccessToken(user(7));
+        int lastDot = token.lastIndexOf('.');
+        String signature = token.substring(lastDot + 1);
+        char flipped = signature.charAt(0) == 'A' ? 'B' : 'A';
+
+        assertThat(tokenService.verify(token.substring(0, lastDot + 1) + flipped + signature.substring(1),
+                TokenService.ACCESS)).isEmpty();
+        // Another user's id under the original signature
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                payload.replace("\"sub\":\"7\"", "\"sub\":\"1\"").getBytes(StandardCharsets.UTF_8));
+        assertThat(tokenService.verify(token.split("\\.")[0] + "." + forged + "." + signature, TokenService.ACCESS))
+                .isEmpty();
+        // Signed with another key
+        TokenService other = new TokenService(new ObjectMapper(), SECRET.toUpperCase(), Duration.ofMinutes(15),
+                Duration.ofDays(7), 100);
+        assertThat(tokenService.verify(other.issueAccessToken(user(7)), TokenService.ACCESS)).isEmpty();
+        assertThat(tokenService.verify("not-a-token", TokenService.ACCESS)).isEmpty();
+    }
+
+    @Test
+    void rejectsATokenOfTheOtherType() {
+        User user = user(7);
+
+        assertThat(tokenService.verify(tokenService.issueRefreshToken(user), TokenService.ACCESS)).isEmpty();
+        assertThat(tokenService.verify(tokenService.issueAccessToken(user), TokenService.REFRESH)).isEmpty();
+        assertThat(tokenService.verify(tokenService.issueRefreshToken(user), TokenService.REFRESH)).isPresent();
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        // Expires the second it is issued
+        TokenService expiring = tokenService(Duration.ZERO);
+
+        assertThat(expiring.verify(expiring.issueAccessToken(user(7)), TokenService.ACCESS)).isEmpty();
+        assertThat(expiring.verify(expiring.issueRefreshToken(user(7)), TokenService.REFRESH)).isPresent();
+    }
+
+    @Test
+    void acceptsTokensIssuedAMillisecondAfterARevocation() throws InterruptedException {
+        User user = user(7);
+        String before = tokenService.issueAccessToken(user);
+        tokenService.revokeUser(7L);
+        String other = tokenService.issueAccessToken(user(8));
+        awaitNextMillisecond();
+
+        // Reactivated and logged in again, most likely within the same second as the revocation
+        String after = tokenService.issueAccessToken(user);
+
+        assertThat(tokenService.verify(before, TokenService.ACCESS)).isEmpty();
+        assertThat(tokenService.verify(after, TokenService.ACCESS)).isPresent();
+        assertThat(tokenService.verify(other, TokenService.ACCESS)).isPresent();
+    }
+
+    private static void awaitNextMillisecond() throws InterruptedException {
+        long now = Instant.now().toEpochMilli();
+        while (Instant.now().toEpochMilli() <= now) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static TokenService tokenService(Duration accessTtl) {
+        return new TokenService(new ObjectMapper(), SECRET, accessTtl, Duration.ofDays(7), 100);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user_" + id);
+        return user;
+    }
+}